@@ -67,3 +67,29 @@ ifeq ($(WITH_HOST_DALVIK),true)
     LOCAL_BUILD_HOST_DEX := true
     include $(BUILD_HOST_JAVA_LIBRARY)
 endif
+
+# Benchmarks live in each module's src/bench/java tree. They're built against the tests
+# library, for the support module's fixtures and the test resources, and run with it on
+# the classpath by run-harmony-benchmarks rather than with the tests.
+harmony_bench_src_files := \
+    $(call all-harmony-test-java-files-under,$(harmony_test_dirs),src/bench/java)
+
+include $(CLEAR_VARS)
+LOCAL_SRC_FILES := $(harmony_bench_src_files)
+LOCAL_NO_STANDARD_LIBRARIES := true
+LOCAL_JAVA_LIBRARIES := core core-junit apache-harmony-tests
+LOCAL_JAVACFLAGS := $(harmony_test_javac_flags)
+LOCAL_MODULE_TAGS := tests
+LOCAL_MODULE := apache-harmony-benchmarks
+include $(BUILD_STATIC_JAVA_LIBRARY)
+
+ifeq ($(WITH_HOST_DALVIK),true)
+    include $(CLEAR_VARS)
+    LOCAL_SRC_FILES := $(harmony_bench_src_files)
+    LOCAL_NO_STANDARD_LIBRARIES := true
+    LOCAL_JAVA_LIBRARIES := core-hostdex core-junit-hostdex apache-harmony-tests-hostdex
+    LOCAL_JAVACFLAGS := $(harmony_test_javac_flags)
+    LOCAL_MODULE := apache-harmony-benchmarks-hostdex
+    LOCAL_BUILD_HOST_DEX := true
+    include $(BUILD_HOST_JAVA_LIBRARY)
+endif
@@ -34,17 +34,16 @@ import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.LoggingPermission;
 
-import junit.framework.TestCase;
-
 import org.apache.harmony.logging.tests.java.util.logging.HandlerTest.NullOutputStream;
 import org.apache.harmony.logging.tests.java.util.logging.util.EnvironmentHelper;
+import org.apache.harmony.testframework.perf.InstrumentedTestCase;
 
 /**
  *
  * add/get logger(dot)
  *
  */
-public class LogManagerTest extends TestCase {
+public class LogManagerTest extends InstrumentedTestCase {
 
 	private static final String FOO = "LogManagerTestFoo";
 
@@ -0,0 +1,129 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.benchmarks.java.io;
+
+import junit.framework.TestSuite;
+import org.apache.harmony.testframework.CharSinkTester;
+import org.apache.harmony.testframework.CharSourceTester;
+import org.apache.harmony.testframework.CharWrapperTester;
+import org.apache.harmony.testframework.SinkTester;
+import org.apache.harmony.testframework.SourceTester;
+import org.apache.harmony.testframework.WrapperTester;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Throughput of the in-memory and buffered luni streams, measured by the
+ * stream testers' benchmarks.
+ */
+public class StreamBenchmarks {
+
+    public static junit.framework.Test suite() {
+        TestSuite suite = new TestSuite();
+        suite.addTest(new ByteArrayOutputStreamSinkTester().createBenchmarks());
+        suite.addTest(new BufferedOutputStreamTester().createBenchmarks());
+        suite.addTest(new ByteArrayInputStreamSourceTester().createBenchmarks());
+        suite.addTest(new BufferedInputStreamSourceTester().createBenchmarks());
+        suite.addTest(new CharArrayWriterCharSinkTester().createBenchmarks());
+        suite.addTest(new BufferedWriterCharSinkTester().createBenchmarks());
+        suite.addTest(new CharArrayReaderCharSourceTester().createBenchmarks());
+        suite.addTest(new BufferedReaderCharSourceTester().createBenchmarks());
+        return suite;
+    }
+
+    private static class ByteArrayOutputStreamSinkTester extends SinkTester {
+        private ByteArrayOutputStream stream;
+
+        @Override public OutputStream create() throws Exception {
+            stream = new ByteArrayOutputStream();
+            return stream;
+        }
+
+        @Override public byte[] getBytes() throws Exception {
+            return stream.toByteArray();
+        }
+    }
+
+    private static class BufferedOutputStreamTester extends WrapperTester {
+        @Override public OutputStream create(OutputStream delegate) throws Exception {
+            return new BufferedOutputStream(delegate);
+        }
+
+        @Override public byte[] decode(byte[] delegateBytes) throws Exception {
+            return delegateBytes;
+        }
+    }
+
+    private static class ByteArrayInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new ByteArrayInputStream(data);
+        }
+    }
+
+    private static class BufferedInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new BufferedInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    private static class CharArrayWriterCharSinkTester extends CharSinkTester {
+        private CharArrayWriter writer;
+
+        @Override public Writer create() throws Exception {
+            writer = new CharArrayWriter();
+            return writer;
+        }
+
+        @Override public char[] getChars() throws Exception {
+            return writer.toCharArray();
+        }
+    }
+
+    private static class BufferedWriterCharSinkTester extends CharWrapperTester {
+        @Override public Writer create(Writer delegate) throws Exception {
+            return new BufferedWriter(delegate);
+        }
+
+        @Override public char[] decode(char[] delegateChars) throws Exception {
+            return delegateChars;
+        }
+    }
+
+    private static class CharArrayReaderCharSourceTester extends CharSourceTester {
+        @Override public Reader create(char[] data) throws Exception {
+            return new CharArrayReader(data);
+        }
+    }
+
+    private static class BufferedReaderCharSourceTester extends CharSourceTester {
+        @Override public Reader create(char[] data) throws Exception {
+            return new BufferedReader(new CharArrayReader(data));
+        }
+    }
+}
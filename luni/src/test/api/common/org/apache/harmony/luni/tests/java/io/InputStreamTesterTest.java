@@ -0,0 +1,147 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.io;
+
+import junit.framework.TestSuite;
+import org.apache.harmony.testframework.SourceTester;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Tests basic {@link InputStream} behaviors for the luni implementations of
+ * the type.
+ */
+public class InputStreamTesterTest {
+
+    public static junit.framework.Test suite() {
+        TestSuite suite = new TestSuite();
+
+        // source tests
+        suite.addTest(new ByteArrayInputStreamSourceTester().createTests());
+        suite.addTest(new FileInputStreamSourceTester().createTests());
+        suite.addTest(new PipedInputStreamSourceTester().createTests());
+        suite.addTest(new SequenceInputStreamSourceTester().createTests());
+
+        // wrapper tests
+        suite.addTest(new BufferedInputStreamSourceTester(1).createTests());
+        suite.addTest(new BufferedInputStreamSourceTester(5).createTests());
+        suite.addTest(new BufferedInputStreamSourceTester(1024).createTests());
+        suite.addTest(new FilterInputStreamSourceTester().createTests());
+        suite.addTest(new DataInputStreamSourceTester().createTests());
+        suite.addTest(new PushbackInputStreamSourceTester().createTests());
+
+        return suite;
+    }
+
+    private static class ByteArrayInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new ByteArrayInputStream(data);
+        }
+    }
+
+    private static class FileInputStreamSourceTester extends SourceTester {
+        private byte[] data;
+        private File file;
+
+        @Override public InputStream create(byte[] data) throws Exception {
+            // benchmarks read the same data repeatedly; only write it once
+            if (data != this.data) {
+                file = File.createTempFile("FileInputStreamSourceTester", "tmp");
+                file.deleteOnExit();
+                FileOutputStream out = new FileOutputStream(file);
+                out.write(data);
+                out.close();
+                this.data = data;
+            }
+            return new FileInputStream(file);
+        }
+    }
+
+    private static class PipedInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(final byte[] data) throws Exception {
+            final PipedOutputStream out = new PipedOutputStream();
+            PipedInputStream in = new PipedInputStream(out);
+            new Thread("PipedInputStreamSourceTester") {
+                @Override public void run() {
+                    try {
+                        out.write(data);
+                        out.close();
+                    } catch (IOException ignored) {
+                        // the reader closed its end early
+                    }
+                }
+            }.start();
+            return in;
+        }
+    }
+
+    private static class SequenceInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            int half = data.length / 2;
+            return new SequenceInputStream(
+                    new ByteArrayInputStream(data, 0, half),
+                    new ByteArrayInputStream(data, half, data.length - half));
+        }
+    }
+
+    private static class BufferedInputStreamSourceTester extends SourceTester {
+        private final int bufferSize;
+
+        private BufferedInputStreamSourceTester(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new BufferedInputStream(new ByteArrayInputStream(data), bufferSize);
+        }
+
+        @Override public String toString() {
+            return super.toString() + "(" + bufferSize + ")";
+        }
+    }
+
+    private static class FilterInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new FilterInputStream(new ByteArrayInputStream(data)) {};
+        }
+    }
+
+    private static class DataInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new DataInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    private static class PushbackInputStreamSourceTester extends SourceTester {
+        @Override public InputStream create(byte[] data) throws Exception {
+            return new PushbackInputStream(new ByteArrayInputStream(data));
+        }
+    }
+}
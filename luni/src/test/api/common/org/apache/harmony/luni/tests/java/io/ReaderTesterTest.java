@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.io;
+
+import junit.framework.TestSuite;
+import org.apache.harmony.testframework.CharSourceTester;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+
+/**
+ * Tests basic {@link Reader} behaviors for the luni implementations of the type.
+ */
+public class ReaderTesterTest {
+
+    public static junit.framework.Test suite() {
+        TestSuite suite = new TestSuite();
+
+        // source tests
+        suite.addTest(new CharArrayReaderCharSourceTester().createTests());
+        suite.addTest(new StringReaderCharSourceTester().createTests());
+        suite.addTest(new FileReaderCharSourceTester().createTests());
+        suite.addTest(new PipedReaderCharSourceTester().createTests());
+        suite.addTest(new InputStreamReaderCharSourceTester().createTests());
+
+        // wrapper tests
+        suite.addTest(new BufferedReaderCharSourceTester(1).createTests());
+        suite.addTest(new BufferedReaderCharSourceTester(5).createTests());
+        suite.addTest(new BufferedReaderCharSourceTester(1024).createTests());
+        suite.addTest(new PushbackReaderCharSourceTester().createTests());
+
+        return suite;
+    }
+
+    private static class CharArrayReaderCharSourceTester extends CharSourceTester {
+        @Override public Reader create(char[] data) throws Exception {
+            return new CharArrayReader(data);
+        }
+    }
+
+    private static class StringReaderCharSourceTester extends CharSourceTester {
+        private char[] data;
+        private String string;
+
+        @Override public Reader create(char[] data) throws Exception {
+            // benchmarks read the same data repeatedly; only copy it once
+            if (data != this.data) {
+                string = new String(data);
+                this.data = data;
+            }
+            return new StringReader(string);
+        }
+    }
+
+    private static class FileReaderCharSourceTester extends CharSourceTester {
+        private char[] data;
+        private File file;
+
+        @Override public Reader create(char[] data) throws Exception {
+            // benchmarks read the same data repeatedly; only write it once
+            if (data != this.data) {
+                file = File.createTempFile("FileReaderCharSourceTester", "tmp");
+                file.deleteOnExit();
+                Writer out = new OutputStreamWriter(new FileOutputStream(file));
+                out.write(data);
+                out.close();
+                this.data = data;
+            }
+            return new FileReader(file);
+        }
+    }
+
+    private static class PipedReaderCharSourceTester extends CharSourceTester {
+        @Override public Reader create(final char[] data) throws Exception {
+            final PipedWriter out = new PipedWriter();
+            PipedReader in = new PipedReader(out);
+            new Thread("PipedReaderCharSourceTester") {
+                @Override public void run() {
+                    try {
+                        out.write(data);
+                        out.close();
+                    } catch (IOException ignored) {
+                        // the reader closed its end early
+                    }
+                }
+            }.start();
+            return in;
+        }
+    }
+
+    private static class InputStreamReaderCharSourceTester extends CharSourceTester {
+        private char[] data;
+        private byte[] bytes;
+
+        @Override public Reader create(char[] data) throws Exception {
+            if (data != this.data) {
+                bytes = new String(data).getBytes("UTF-8");
+                this.data = data;
+            }
+            return new InputStreamReader(new ByteArrayInputStream(bytes), "UTF-8");
+        }
+    }
+
+    private static class BufferedReaderCharSourceTester extends CharSourceTester {
+        private final int bufferSize;
+
+        private BufferedReaderCharSourceTester(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        @Override public Reader create(char[] data) throws Exception {
+            return new BufferedReader(new CharArrayReader(data), bufferSize);
+        }
+
+        @Override public String toString() {
+            return super.toString() + "(" + bufferSize + ")";
+        }
+    }
+
+    private static class PushbackReaderCharSourceTester extends CharSourceTester {
+        @Override public Reader create(char[] data) throws Exception {
+            return new PushbackReader(new CharArrayReader(data));
+        }
+    }
+}
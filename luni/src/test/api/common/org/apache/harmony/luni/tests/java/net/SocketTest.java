@@ -38,9 +38,11 @@ import java.security.Permission;
 import java.util.Arrays;
 import java.util.Locale;
 
+import org.apache.harmony.testframework.perf.InstrumentedTestCase;
+
 import tests.support.Support_Configuration;
 
-public class SocketTest extends junit.framework.TestCase {
+public class SocketTest extends InstrumentedTestCase {
     private class ClientThread implements Runnable {
 
         public void run() {
@@ -39,7 +39,9 @@ import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import tests.support.Streams;
 import tests.support.Support_Configuration;
+import tests.support.Support_KeepAliveHttpServer;
 import tests.support.resource.Support_Resources;
 
 public class URLConnectionTest extends junit.framework.TestCase {
@@ -801,6 +803,33 @@ public class URLConnectionTest extends junit.framework.TestCase {
                 "URLConnection") > 0);
     }
 
+    /**
+     * @tests java.net.HttpURLConnection reuses a connection whose response
+     *        body was fully read, whether fixed-length or chunked
+     */
+    public void test_keepAliveConnectionReuse() throws Exception {
+        Support_KeepAliveHttpServer server = new Support_KeepAliveHttpServer()
+                .setChunkSize(1000);
+        server.start();
+        try {
+            String[] paths = { Support_KeepAliveHttpServer.FIXED + 10000,
+                    Support_KeepAliveHttpServer.CHUNKED + 10000 };
+            for (int i = 0; i < 10; i++) {
+                URLConnection connection = server.getUrl(paths[i % 2])
+                        .openConnection();
+                InputStream in = connection.getInputStream();
+                byte[] body = Streams.streamToBytes(in);
+                in.close();
+                assertEquals(10000, body.length);
+                assertEquals('A' + 9999 % 26, body[9999]);
+            }
+            assertEquals(10, server.getRequestCount());
+            assertEquals(1, server.getConnectionCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
     private byte[] toBOMBytes(String text, String enc) throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
 
@@ -0,0 +1,482 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.BenchmarkResult;
+
+/**
+ * Sorts int[], long[], double[], char[] and Comparable[] arrays of 10, 100
+ * and so on up to {@code hy.test.sort.maxn} elements, 100000 by default, in
+ * the distributions that break naive sorts:
+ * <ul>
+ *   <li>sorted, reversed, sawtooth, organ pipe, many duplicates and random;
+ *   <li>extremes, random but with one element in eight the type's smallest,
+ *       largest or otherwise special value, like NaN and -0.0 for doubles;
+ *   <li>Musser's median-of-three killer;
+ *   <li>McIlroy's adversary, as it plays against the Comparable sort.
+ * </ul>
+ * Every sort is verified to be in order and a permutation of its input, and
+ * the Comparable sort to be stable.
+ *
+ * <p>A Comparable sort fails if it makes more than 2 n log2 n comparisons,
+ * which doesn't depend on the VM's speed. With {@code hy.test.benchmarks}
+ * set, the sorts are also timed: a quadratic sort takes ten times as long
+ * per element at each tenfold size, and an n log n one hardly longer, so a
+ * sort of at least {@link #MIN_TIMED_LENGTH} elements fails if its time per
+ * element is more than {@link #MAX_GROWTH} times that at a tenth of the
+ * size. Times are the fastest of the samples, after a few sorts to warm up.
+ * Each sort's time per element is printed, named like {@code
+ * sort[type=int,dist=random,n=1000]}; each operation of such a result is one
+ * element.
+ */
+public class ArraysSortTest extends BenchmarkCase {
+
+    static final String MAX_N_KEY = "hy.test.sort.maxn";
+
+    private static final String[] DISTRIBUTIONS = {
+            "sorted", "reversed", "sawtooth", "organPipe", "duplicates", "random",
+            "extremes", "medianOf3Killer", "adversary",
+    };
+
+    private static final int MIN_TIMED_LENGTH = 10000;
+    private static final double MAX_GROWTH = 5.0;
+
+    /** the sorts timed at each size without benchmarks */
+    private static final int REPEATS = 3;
+
+    private final int maxN = Integer.getInteger(MAX_N_KEY, 100000);
+
+    /**
+     * An array type and its sort.
+     */
+    private static abstract class ArrayType {
+        /**
+         * Returns an array holding {@code values}, with the type's extreme
+         * values in place of one in eight of them if {@code extremes}.
+         */
+        abstract Object create(int[] values, boolean extremes, Random rnd);
+
+        abstract void sort(Object array);
+
+        /** Returns true if {@code array[i - 1]} may precede {@code array[i]}. */
+        abstract boolean inOrder(Object array, int i);
+
+        /** Returns the bits of {@code array[i]}, which are equal if the elements are. */
+        abstract long bits(Object array, int i);
+
+        /** Returns the comparisons made by the last sort, or -1 if unknown. */
+        long comparisons() {
+            return -1;
+        }
+    }
+
+    private static final ArrayType INT = new ArrayType() {
+        final int[] extremes = { Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1 };
+
+        Object create(int[] values, boolean withExtremes, Random rnd) {
+            int[] array = values.clone();
+            for (int i = 0; withExtremes && i < array.length; i += 8) {
+                array[i] = extremes[rnd.nextInt(extremes.length)];
+            }
+            return array;
+        }
+
+        void sort(Object array) {
+            Arrays.sort((int[]) array);
+        }
+
+        boolean inOrder(Object array, int i) {
+            return ((int[]) array)[i - 1] <= ((int[]) array)[i];
+        }
+
+        long bits(Object array, int i) {
+            return ((int[]) array)[i];
+        }
+    };
+
+    private static final ArrayType LONG = new ArrayType() {
+        final long[] extremes = { Long.MIN_VALUE, Long.MAX_VALUE, 0, -1 };
+
+        Object create(int[] values, boolean withExtremes, Random rnd) {
+            long[] array = new long[values.length];
+            for (int i = 0; i < array.length; i++) {
+                // keep the order of the ints but use the high word too
+                array[i] = ((long) values[i] << 32) | (values[i] & 0xffffffffL);
+            }
+            for (int i = 0; withExtremes && i < array.length; i += 8) {
+                array[i] = extremes[rnd.nextInt(extremes.length)];
+            }
+            return array;
+        }
+
+        void sort(Object array) {
+            Arrays.sort((long[]) array);
+        }
+
+        boolean inOrder(Object array, int i) {
+            return ((long[]) array)[i - 1] <= ((long[]) array)[i];
+        }
+
+        long bits(Object array, int i) {
+            return ((long[]) array)[i];
+        }
+    };
+
+    /**
+     * Doubles, which sort in the order of Double.compare: -0.0 before 0.0,
+     * and NaN after everything.
+     */
+    private static final ArrayType DOUBLE = new ArrayType() {
+        final double[] extremes = {
+                Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.MIN_VALUE, -Double.MAX_VALUE,
+        };
+
+        Object create(int[] values, boolean withExtremes, Random rnd) {
+            double[] array = new double[values.length];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = values[i] / 4.0;
+            }
+            for (int i = 0; withExtremes && i < array.length; i += 8) {
+                array[i] = extremes[rnd.nextInt(extremes.length)];
+            }
+            return array;
+        }
+
+        void sort(Object array) {
+            Arrays.sort((double[]) array);
+        }
+
+        boolean inOrder(Object array, int i) {
+            return Double.compare(((double[]) array)[i - 1], ((double[]) array)[i]) <= 0;
+        }
+
+        long bits(Object array, int i) {
+            return Double.doubleToLongBits(((double[]) array)[i]);
+        }
+    };
+
+    private static final ArrayType CHAR = new ArrayType() {
+        final char[] extremes = { Character.MIN_VALUE, Character.MAX_VALUE };
+
+        Object create(int[] values, boolean withExtremes, Random rnd) {
+            char[] array = new char[values.length];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = (char) values[i];
+            }
+            for (int i = 0; withExtremes && i < array.length; i += 8) {
+                array[i] = extremes[rnd.nextInt(extremes.length)];
+            }
+            return array;
+        }
+
+        void sort(Object array) {
+            Arrays.sort((char[]) array);
+        }
+
+        boolean inOrder(Object array, int i) {
+            return ((char[]) array)[i - 1] <= ((char[]) array)[i];
+        }
+
+        long bits(Object array, int i) {
+            return ((char[]) array)[i];
+        }
+    };
+
+    /**
+     * Keys that count their comparisons, and remember their index in the
+     * input so that stability can be checked.
+     */
+    private static final class CountingKey implements Comparable<CountingKey> {
+        static long comparisons;
+
+        final int value;
+        final int index;
+
+        CountingKey(int value, int index) {
+            this.value = value;
+            this.index = index;
+        }
+
+        public int compareTo(CountingKey o) {
+            comparisons++;
+            return value < o.value ? -1 : (value == o.value ? 0 : 1);
+        }
+    }
+
+    private static final ArrayType COMPARABLE = new ArrayType() {
+        Object create(int[] values, boolean withExtremes, Random rnd) {
+            CountingKey[] array = new CountingKey[values.length];
+            for (int i = 0; i < array.length; i++) {
+                int value = values[i];
+                if (withExtremes && i % 8 == 0) {
+                    value = rnd.nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                }
+                array[i] = new CountingKey(value, i);
+            }
+            return array;
+        }
+
+        void sort(Object array) {
+            CountingKey.comparisons = 0;
+            Arrays.sort((CountingKey[]) array);
+        }
+
+        boolean inOrder(Object array, int i) {
+            CountingKey a = ((CountingKey[]) array)[i - 1];
+            CountingKey b = ((CountingKey[]) array)[i];
+            return a.value < b.value || (a.value == b.value && a.index < b.index);
+        }
+
+        long bits(Object array, int i) {
+            return ((CountingKey[]) array)[i].value;
+        }
+
+        @Override long comparisons() {
+            return CountingKey.comparisons;
+        }
+    };
+
+    public void testInt() throws Exception {
+        checkSorts("int", INT);
+    }
+
+    public void testLong() throws Exception {
+        checkSorts("long", LONG);
+    }
+
+    public void testDouble() throws Exception {
+        checkSorts("double", DOUBLE);
+    }
+
+    public void testChar() throws Exception {
+        checkSorts("char", CHAR);
+    }
+
+    public void testComparable() throws Exception {
+        checkSorts("Comparable", COMPARABLE);
+    }
+
+    public void testMedianOf3Killer() {
+        int[] killer = distribution("medianOf3Killer", 8, new Random(-1));
+        assertEquals("[1, 5, 3, 7, 2, 4, 6, 8]", Arrays.toString(killer));
+        killer = distribution("medianOf3Killer", 10, new Random(-1));
+        assertEquals("[1, 5, 3, 7, 2, 4, 6, 8, 9, 10]", Arrays.toString(killer));
+
+        for (int n = 0; n <= 100; n++) {
+            killer = distribution("medianOf3Killer", n, new Random(-1));
+            Arrays.sort(killer);
+            for (int i = 0; i < n; i++) {
+                assertEquals("not a permutation of 1 to " + n, i + 1, killer[i]);
+            }
+        }
+    }
+
+    /**
+     * Sorts arrays of every size and distribution, and checks each sort's
+     * result and cost.
+     */
+    private void checkSorts(String typeName, ArrayType type) throws Exception {
+        for (String distribution : DISTRIBUTIONS) {
+            double previousNanosPerElement = Double.NaN;
+            for (int n = 10; n <= maxN; n *= 10) {
+                Random rnd = new Random(n);
+                Object input = type.create(distribution(distribution, n, rnd),
+                        distribution.equals("extremes"), rnd);
+                String name = withParams("sort", "type", typeName, "dist", distribution, "n", n);
+                double nanosPerElement = checkSort(name, type, input, n);
+
+                long comparisons = type.comparisons();
+                double log2n = Math.log(n) / Math.log(2);
+                if (comparisons > 2 * n * log2n) {
+                    fail(String.format("%s made %d comparisons, more than 2 n log2 n = %.0f",
+                            name, comparisons, 2 * n * log2n));
+                }
+                if (isEnabled() && n >= MIN_TIMED_LENGTH
+                        && nanosPerElement > MAX_GROWTH * previousNanosPerElement) {
+                    fail(String.format("%s took %.1f ns per element, more than %.0f times the"
+                            + " %.1f at n=%d; the sort looks quadratic", name, nanosPerElement,
+                            MAX_GROWTH, previousNanosPerElement, n / 10));
+                }
+                previousNanosPerElement = nanosPerElement;
+            }
+        }
+    }
+
+    /**
+     * Sorts copies of {@code input}, verifies the result, and returns the
+     * fastest sort's time per element.
+     */
+    private double checkSort(String name, ArrayType type, Object input, int n) {
+        Object work = copyOf(input, n);
+        // the first sort at a new size may run code that isn't compiled yet
+        int warmUps = isEnabled() ? REPEATS : 1;
+        int samples = isEnabled() ? Integer.getInteger(SAMPLES_KEY, 20) : REPEATS;
+        double[] nanosPerElement = new double[samples];
+        for (int i = -warmUps; i < samples; i++) {
+            System.arraycopy(input, 0, work, 0, n);
+            long start = System.nanoTime();
+            type.sort(work);
+            long nanos = System.nanoTime() - start;
+            if (i >= 0) {
+                nanosPerElement[i] = (double) nanos / n;
+            }
+        }
+        verify(name, type, input, work, n);
+
+        BenchmarkResult result = new BenchmarkResult(getClass().getName() + "#" + name, n,
+                nanosPerElement, -1);
+        if (isEnabled()) {
+            System.out.println(result);
+        }
+        return result.getPercentile(0);
+    }
+
+    private static Object copyOf(Object array, int n) {
+        Object copy = java.lang.reflect.Array.newInstance(array.getClass().getComponentType(), n);
+        System.arraycopy(array, 0, copy, 0, n);
+        return copy;
+    }
+
+    /**
+     * Checks that {@code sorted} is in order, and holds the same elements as
+     * {@code input} by comparing fingerprints of both.
+     */
+    private static void verify(String name, ArrayType type, Object input, Object sorted, int n) {
+        for (int i = 1; i < n; i++) {
+            if (!type.inOrder(sorted, i)) {
+                fail(name + " left elements " + (i - 1) + " and " + i + " out of order");
+            }
+        }
+        assertEquals(name + " changed the elements", fingerprint(type, input, n),
+                fingerprint(type, sorted, n));
+    }
+
+    /**
+     * Returns a hash of the multiset of elements, independent of their order.
+     */
+    private static long fingerprint(ArrayType type, Object array, int n) {
+        long sum = 0;
+        long sumOfMixed = 0;
+        for (int i = 0; i < n; i++) {
+            long bits = type.bits(array, i);
+            sum += bits;
+            long mixed = bits * 0x9E3779B97F4A7C15L;
+            sumOfMixed += mixed ^ (mixed >>> 29);
+        }
+        return sum * 31 + sumOfMixed;
+    }
+
+    /**
+     * Returns {@code n} ints in the named distribution.
+     */
+    static int[] distribution(String name, int n, Random rnd) {
+        int[] values = new int[n];
+        if (name.equals("sorted")) {
+            for (int i = 0; i < n; i++) {
+                values[i] = i;
+            }
+        } else if (name.equals("reversed")) {
+            for (int i = 0; i < n; i++) {
+                values[i] = n - i;
+            }
+        } else if (name.equals("sawtooth")) {
+            int period = Math.max(2, (int) Math.sqrt(n));
+            for (int i = 0; i < n; i++) {
+                values[i] = i % period;
+            }
+        } else if (name.equals("organPipe")) {
+            for (int i = 0; i < n; i++) {
+                values[i] = i < n / 2 ? i : n - i;
+            }
+        } else if (name.equals("duplicates")) {
+            for (int i = 0; i < n; i++) {
+                values[i] = rnd.nextInt(16);
+            }
+        } else if (name.equals("random") || name.equals("extremes")) {
+            for (int i = 0; i < n; i++) {
+                values[i] = rnd.nextInt();
+            }
+        } else if (name.equals("medianOf3Killer")) {
+            medianOf3Killer(values);
+        } else if (name.equals("adversary")) {
+            adversary(values);
+        } else {
+            throw new IllegalArgumentException(name);
+        }
+        return values;
+    }
+
+    /**
+     * Fills {@code values} with Musser's sequence, which makes a quicksort
+     * that picks the median of the first, middle and last elements as its
+     * pivot partition off two elements at a time. The sequence is a
+     * permutation of 1 to n only when n is a multiple of 4, so it's built for
+     * the largest such length and the rest of the values follow in order.
+     */
+    private static void medianOf3Killer(int[] values) {
+        int n = values.length - values.length % 4;
+        int k = n / 2;
+        for (int i = 1; i <= k; i++) {
+            values[i - 1] = i % 2 == 1 ? i : k + i - 1;
+            values[k + i - 1] = 2 * i;
+        }
+        for (int i = n; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+    }
+
+    /**
+     * Fills {@code values} with the input McIlroy's adversary builds while
+     * the Comparable sort runs. Values start as "gas", greater than every
+     * fixed value, and are fixed one at a time as the sort compares them, so
+     * that pivots end up as small as possible. Against a quicksort, that
+     * input is quadratic.
+     */
+    private static void adversary(final int[] values) {
+        final int gas = values.length;
+        Arrays.fill(values, gas);
+        Integer[] indices = new Integer[values.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, new Comparator<Integer>() {
+            int solid = 0;
+            int candidate = 0;
+
+            public int compare(Integer a, Integer b) {
+                int x = a;
+                int y = b;
+                if (values[x] == gas && values[y] == gas) {
+                    values[x == candidate ? x : y] = solid++;
+                }
+                if (values[x] == gas) {
+                    candidate = x;
+                } else if (values[y] == gas) {
+                    candidate = y;
+                }
+                return values[x] < values[y] ? -1 : (values[x] == values[y] ? 0 : 1);
+            }
+        });
+    }
+}
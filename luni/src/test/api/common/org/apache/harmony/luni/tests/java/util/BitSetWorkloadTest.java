@@ -0,0 +1,229 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.Footprint;
+
+/**
+ * Runs whole-set operations on large BitSets, like the bloom-style filters
+ * that hold hundreds of millions of bits: cardinality, scans with nextSetBit
+ * and nextClearBit, and, or, xor and andNot, and setting and clearing ranges.
+ * Each runs on a sparse set, with one bit in {@link #SPARSE_SPACING} set, and
+ * on a dense one, with half of its bits set, of {@code hy.test.bitset.bits}
+ * bits, 4M by default.
+ *
+ * <p>Results are checked against each other: a scan finds as many bits as
+ * cardinality counts, and the boolean operations agree with the identities
+ * between their cardinalities. The heap a set retains is measured too, and
+ * must be no more than {@link #MAX_BYTES_PER_BIT} per bit of its length.
+ *
+ * <p>With {@code hy.test.benchmarks} set, each operation is timed on the
+ * whole set, named like {@code cardinality[density=sparse,bits=4194304]},
+ * and the heap retained per set bit is printed in bytes/bit.
+ */
+public class BitSetWorkloadTest extends BenchmarkCase {
+
+    static final String BITS_KEY = "hy.test.bitset.bits";
+
+    private static final int SPARSE_SPACING = 4096;
+
+    /** an array of words takes 1/8 of a byte per bit; this allows for its header and growth */
+    private static final double MAX_BYTES_PER_BIT = 0.14;
+
+    /** the most bits set or cleared by one range operation */
+    private static final int MAX_RANGE = 4096;
+
+    private final int bits = Integer.getInteger(BITS_KEY, 1 << 22);
+
+    public void testSparse() throws Exception {
+        checkWorkload("sparse");
+    }
+
+    public void testDense() throws Exception {
+        checkWorkload("dense");
+    }
+
+    /**
+     * Returns a new set of the named density. Sets with the same seed are
+     * equal.
+     */
+    private BitSet create(String density, long seed) {
+        Random rnd = new Random(seed);
+        BitSet set = new BitSet(bits);
+        if (density.equals("sparse")) {
+            for (int i = bits / SPARSE_SPACING; i > 0; i--) {
+                set.set(rnd.nextInt(bits));
+            }
+        } else {
+            for (int word = 0; word < bits; word += 64) {
+                long value = rnd.nextLong();
+                for (int i = 0; i < 64 && word + i < bits; i++) {
+                    if ((value & (1L << i)) != 0) {
+                        set.set(word + i);
+                    }
+                }
+            }
+        }
+        // make the last bit set, so both sets have the same length
+        set.set(bits - 1);
+        return set;
+    }
+
+    private void checkWorkload(final String density) throws Exception {
+        final BitSet a = create(density, 1);
+        final BitSet b = create(density, 2);
+        final int cardinality = a.cardinality();
+        assertEquals(bits, a.length());
+
+        checkFootprint(density, cardinality);
+
+        measure(name("cardinality", density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(a.cardinality());
+                }
+            }
+        });
+
+        final int[] found = new int[1];
+        measure(name("nextSetBit", density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    int count = 0;
+                    for (int bit = a.nextSetBit(0); bit >= 0; bit = a.nextSetBit(bit + 1)) {
+                        count++;
+                    }
+                    found[0] = count;
+                }
+            }
+        });
+        assertEquals("set bits found by nextSetBit", cardinality, found[0]);
+
+        measure(name("nextClearBit", density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    int count = 0;
+                    for (int bit = a.nextClearBit(0); bit < bits; bit = a.nextClearBit(bit + 1)) {
+                        count++;
+                    }
+                    found[0] = count;
+                }
+            }
+        });
+        assertEquals("clear bits found by nextClearBit", bits - cardinality, found[0]);
+
+        // and, or and andNot give the same result when repeated, so each
+        // works on a copy that is only changed by the first repetition
+        BitSet and = (BitSet) a.clone();
+        measureBooleanOp("and", density, and, b);
+        BitSet or = (BitSet) a.clone();
+        measureBooleanOp("or", density, or, b);
+        BitSet andNot = (BitSet) a.clone();
+        measureBooleanOp("andNot", density, andNot, b);
+        // xor undoes itself, so it's repeated an even number of times
+        final BitSet xor = (BitSet) a.clone();
+        measure(name("xor", density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    xor.xor(b);
+                }
+                if (reps % 2 == 1) {
+                    xor.xor(b);
+                }
+            }
+        });
+        assertEquals(a, xor);
+        xor.xor(b);
+
+        int both = and.cardinality();
+        assertEquals("|a or b|", cardinality + b.cardinality() - both, or.cardinality());
+        assertEquals("|a xor b|", or.cardinality() - both, xor.cardinality());
+        assertEquals("|a andNot b|", cardinality - both, andNot.cardinality());
+
+        final BitSet ranges = (BitSet) a.clone();
+        final int[] froms = new int[1024];
+        final int[] tos = new int[froms.length];
+        Random rnd = new Random(3);
+        for (int i = 0; i < froms.length; i++) {
+            froms[i] = rnd.nextInt(bits - MAX_RANGE);
+            tos[i] = froms[i] + 1 + rnd.nextInt(MAX_RANGE);
+        }
+        measure(name("setRange", density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    int r = i & (froms.length - 1);
+                    ranges.set(froms[r], tos[r]);
+                    ranges.clear(froms[r], tos[r]);
+                }
+            }
+        });
+        int from = froms[0];
+        int to = tos[0];
+        ranges.set(from, to);
+        assertEquals("bits set in range", to - from, ranges.get(from, to).cardinality());
+        assertEquals(from, ranges.nextSetBit(from));
+        ranges.clear(from, to);
+        assertEquals(from, ranges.nextClearBit(from));
+        assertTrue("bits left in cleared range", ranges.get(from, to).isEmpty());
+    }
+
+    /**
+     * Times {@code operation} with {@code b} on {@code result}, which must
+     * give the same result however often it's repeated.
+     */
+    private void measureBooleanOp(final String operation, String density,
+            final BitSet result, final BitSet b) throws Exception {
+        measure(name(operation, density), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    if (operation.equals("and")) {
+                        result.and(b);
+                    } else if (operation.equals("or")) {
+                        result.or(b);
+                    } else {
+                        result.andNot(b);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Measures the heap a set of the named density retains, checks that it
+     * isn't more than a word array of its length would need, and prints it
+     * per set bit.
+     */
+    private void checkFootprint(final String density, int cardinality) throws Exception {
+        double retained = Footprint.retainedBytes(1, new Footprint.Factory() {
+            public Object create() {
+                return BitSetWorkloadTest.this.create(density, 1);
+            }
+        });
+        assertTrue(String.format("a %s set of %d bits retains %.0f bytes, more than %.2f per bit",
+                density, bits, retained, MAX_BYTES_PER_BIT), retained <= MAX_BYTES_PER_BIT * bits);
+        printResult(name("footprint", density), "%.4f bytes/bit", retained / cardinality);
+    }
+
+    private String name(String operation, String density) {
+        return withParams(operation, "density", density, "bits", bits);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+/**
+ * Creates distinct keys that all have the same hashCode, like those an
+ * attacker sends to a service that puts request parameters in a hash table.
+ */
+public final class CollidingKeys {
+
+    /** the number of equals and compareTo calls made on ConstantHashKeys */
+    private static long probes;
+
+    private CollidingKeys() {
+    }
+
+    /**
+     * Resets the count of equals and compareTo calls made on {@link
+     * ConstantHashKey}s. Tests call this before the operations they count.
+     */
+    static void resetProbes() {
+        probes = 0;
+    }
+
+    /**
+     * Returns the number of equals and compareTo calls made on {@link
+     * ConstantHashKey}s since {@link #resetProbes()}.
+     */
+    static long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Returns {@code count} strings made of "Aa" and "BB" blocks, which have
+     * the same hashCode, so every string of the same number of blocks does.
+     */
+    public static String[] strings(int count) {
+        int blocks = 1;
+        while ((1L << blocks) < count) {
+            blocks++;
+        }
+        String[] keys = new String[count];
+        StringBuilder key = new StringBuilder(2 * blocks);
+        for (int i = 0; i < count; i++) {
+            key.setLength(0);
+            for (int b = blocks - 1; b >= 0; b--) {
+                key.append((i & (1 << b)) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = key.toString();
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@code count} Longs whose high and low words are equal, so
+     * their hashCodes are all zero.
+     */
+    public static Long[] longs(int count) {
+        Long[] keys = new Long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = Long.valueOf(((long) i << 32) | i);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@code count} Doubles whose high and low words are equal, so
+     * their hashCodes are all zero. They're finite and between 1 and 4 for
+     * up to 2^21 keys.
+     */
+    public static Double[] doubles(int count) {
+        Double[] keys = new Double[count];
+        for (int i = 0; i < count; i++) {
+            long word = 0x3FF00000L + i;
+            keys[i] = Double.valueOf(Double.longBitsToDouble((word << 32) | word));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@code count} keys with a constant hashCode that can't be
+     * ordered.
+     */
+    public static ConstantHashKey[] constantHashKeys(int count) {
+        ConstantHashKey[] keys = new ConstantHashKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = new ConstantHashKey(i);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@code count} keys with a constant hashCode that are
+     * Comparable, so a table may order the keys of a crowded bucket.
+     */
+    public static ConstantHashKey[] comparableConstantHashKeys(int count) {
+        ConstantHashKey[] keys = new ConstantHashKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = new ComparableConstantHashKey(i);
+        }
+        return keys;
+    }
+
+    /**
+     * A key whose hashCode is always the same, and whose equals calls are
+     * counted by {@link CollidingKeys#getProbes()}.
+     */
+    public static class ConstantHashKey {
+        final int id;
+
+        ConstantHashKey(int id) {
+            this.id = id;
+        }
+
+        @Override public int hashCode() {
+            return 42;
+        }
+
+        @Override public boolean equals(Object o) {
+            probes++;
+            return o instanceof ConstantHashKey && ((ConstantHashKey) o).id == id;
+        }
+
+        @Override public String toString() {
+            return "key" + id;
+        }
+    }
+
+    /**
+     * A ConstantHashKey whose compareTo calls are counted too.
+     */
+    public static class ComparableConstantHashKey extends ConstantHashKey
+            implements Comparable<ComparableConstantHashKey> {
+
+        ComparableConstantHashKey(int id) {
+            super(id);
+        }
+
+        public int compareTo(ComparableConstantHashKey o) {
+            probes++;
+            return id < o.id ? -1 : (id == o.id ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.BenchmarkResult;
+
+/**
+ * Compares EnumSet and EnumMap with HashSet and HashMap holding the same
+ * constants of the enums in {@link LargeEnums}, from 10 constants, which fit
+ * in a single word, to 2000, which take an array of them. The operations are
+ * add and remove, contains, iteration, complementOf and range for sets, and
+ * put, get and iteration for maps. Each set or map holds every other
+ * constant, so half of the lookups miss.
+ *
+ * <p>Every operation's result is checked against the baseline's. With {@code
+ * hy.test.benchmarks} set, each is timed on both, named like {@code
+ * contains[impl=EnumSet,constants=65]}, and the test fails if the enum
+ * structure is slower than the baseline by more than the two results'
+ * confidence intervals. Map iteration is only timed.
+ */
+public class EnumCollectionsBenchmarkTest extends BenchmarkCase {
+
+    public void testEnum10() throws Exception {
+        checkSets(LargeEnums.Enum10.class);
+        checkMaps(LargeEnums.Enum10.class);
+    }
+
+    public void testEnum64() throws Exception {
+        checkSets(LargeEnums.Enum64.class);
+        checkMaps(LargeEnums.Enum64.class);
+    }
+
+    public void testEnum65() throws Exception {
+        checkSets(LargeEnums.Enum65.class);
+        checkMaps(LargeEnums.Enum65.class);
+    }
+
+    public void testEnum500() throws Exception {
+        checkSets(LargeEnums.Enum500.class);
+        checkMaps(LargeEnums.Enum500.class);
+    }
+
+    public void testEnum2000() throws Exception {
+        checkSets(LargeEnums.Enum2000.class);
+        checkMaps(LargeEnums.Enum2000.class);
+    }
+
+    /**
+     * Returns every other constant of {@code type}.
+     */
+    private static <E extends Enum<E>> List<E> half(Class<E> type) {
+        List<E> result = new ArrayList<E>();
+        E[] constants = type.getEnumConstants();
+        for (int i = 0; i < constants.length; i += 2) {
+            result.add(constants[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code elements} repeated to fill an array whose length is a
+     * power of two, so that an operation can visit every one of them by
+     * masking its counter.
+     */
+    private static <E> E[] cycle(E[] elements) {
+        E[] result = Arrays.copyOf(elements,
+                Integer.highestOneBit(Math.max(1, elements.length - 1)) * 2);
+        for (int i = elements.length; i < result.length; i++) {
+            result[i] = elements[i % elements.length];
+        }
+        return result;
+    }
+
+    private <E extends Enum<E>> void checkSets(final Class<E> type) throws Exception {
+        final E[] constants = type.getEnumConstants();
+        final E[] cycle = cycle(constants);
+        final int mask = cycle.length - 1;
+        final Set<E> enumSet = EnumSet.copyOf(half(type));
+        final Set<E> hashSet = new HashSet<E>(half(type));
+
+        for (final Set<E> set : sets(enumSet, hashSet)) {
+            addResult(set, "addRemove", constants.length, new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        E e = cycle[i & mask];
+                        blackhole.consume(set.add(e));
+                        blackhole.consume(set.remove(e));
+                    }
+                }
+            });
+        }
+        // addRemove removed constants that had been in the sets
+        enumSet.clear();
+        enumSet.addAll(half(type));
+        hashSet.clear();
+        hashSet.addAll(half(type));
+
+        for (final Set<E> set : sets(enumSet, hashSet)) {
+            addResult(set, "contains", constants.length, new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        blackhole.consume(set.contains(cycle[i & mask]));
+                    }
+                }
+            });
+        }
+
+        for (final Set<E> set : sets(enumSet, hashSet)) {
+            addResult(set, "iterate", constants.length, new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        for (E e : set) {
+                            blackhole.consume(e);
+                        }
+                    }
+                }
+            });
+        }
+
+        final EnumSet<E> enumComplement = EnumSet.complementOf((EnumSet<E>) enumSet);
+        final Set<E> hashComplement = complementOf(hashSet, constants);
+        assertEquals(hashComplement, enumComplement);
+        assertEquals(constants.length, enumComplement.size() + enumSet.size());
+        measureBoth("complementOf", constants.length, new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(EnumSet.complementOf((EnumSet<E>) enumSet));
+                }
+            }
+        }, new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(complementOf(hashSet, constants));
+                }
+            }
+        });
+
+        final int from = constants.length / 4;
+        final int to = constants.length - 1 - constants.length / 4;
+        EnumSet<E> enumRange = EnumSet.range(constants[from], constants[to]);
+        assertEquals(range(constants, from, to), enumRange);
+        assertEquals(to - from + 1, enumRange.size());
+        measureBoth("range", constants.length, new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(EnumSet.range(constants[from], constants[to]));
+                }
+            }
+        }, new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(range(constants, from, to));
+                }
+            }
+        });
+
+        assertEquals(hashSet, enumSet);
+    }
+
+    private <E extends Enum<E>> void checkMaps(final Class<E> type) throws Exception {
+        final E[] constants = type.getEnumConstants();
+        final E[] cycle = cycle(constants);
+        final E[] presentCycle = cycle(half(type).toArray(Arrays.copyOf(constants, 0)));
+        Map<E, Integer> enumMap = new EnumMap<E, Integer>(type);
+        Map<E, Integer> hashMap = new HashMap<E, Integer>();
+        for (E e : half(type)) {
+            enumMap.put(e, e.ordinal());
+            hashMap.put(e, e.ordinal());
+        }
+
+        List<Map<E, Integer>> maps = new ArrayList<Map<E, Integer>>();
+        maps.add(enumMap);
+        maps.add(hashMap);
+
+        // putting the values already there keeps the maps as they are
+        for (final Map<E, Integer> map : maps) {
+            addResult(map, "put", constants.length, new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        E e = presentCycle[i & (presentCycle.length - 1)];
+                        blackhole.consume(map.put(e, e.ordinal()));
+                    }
+                }
+            });
+        }
+
+        for (final Map<E, Integer> map : maps) {
+            addResult(map, "get", constants.length, new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        blackhole.consume(map.get(cycle[i & (cycle.length - 1)]));
+                    }
+                }
+            });
+        }
+
+        // iterating an EnumMap visits every slot and may make an entry for
+        // each mapping, so it's timed but not held to the HashMap's speed
+        for (final Map<E, Integer> map : maps) {
+            measure(withParams("iterate", "impl", map.getClass().getSimpleName(),
+                    "constants", constants.length), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        for (Map.Entry<E, Integer> entry : map.entrySet()) {
+                            blackhole.consume(entry.getValue());
+                        }
+                    }
+                }
+            });
+        }
+
+        assertEquals(hashMap, enumMap);
+    }
+
+    private static <E> List<Set<E>> sets(Set<E> enumSet, Set<E> hashSet) {
+        List<Set<E>> sets = new ArrayList<Set<E>>();
+        sets.add(enumSet);
+        sets.add(hashSet);
+        return sets;
+    }
+
+    private static <E> Set<E> complementOf(Set<E> set, E[] constants) {
+        Set<E> result = new HashSet<E>();
+        for (E e : constants) {
+            if (!set.contains(e)) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    private static <E> Set<E> range(E[] constants, int from, int to) {
+        Set<E> result = new HashSet<E>();
+        for (int i = from; i <= to; i++) {
+            result.add(constants[i]);
+        }
+        return result;
+    }
+
+    /** the results of the enum structures, and the baselines at the same index */
+    private final List<BenchmarkResult> enumResults = new ArrayList<BenchmarkResult>();
+    private final List<BenchmarkResult> baselineResults = new ArrayList<BenchmarkResult>();
+
+    /**
+     * Measures {@code operation} on {@code collection}, and keeps the result
+     * to compare with its counterpart's.
+     */
+    private void addResult(Object collection, String name, int constants, Operation operation)
+            throws Exception {
+        boolean isEnum = collection instanceof EnumSet || collection instanceof EnumMap;
+        // name EnumSets by their API, not by their VM-specific implementation
+        String impl = collection instanceof EnumSet ? "EnumSet"
+                : collection.getClass().getSimpleName();
+        BenchmarkResult result = measure(withParams(name, "impl", impl, "constants", constants),
+                operation);
+        (isEnum ? enumResults : baselineResults).add(result);
+        if (!isEnum) {
+            compareResults();
+        }
+    }
+
+    private void measureBoth(String name, int constants, Operation enumOperation,
+            Operation baselineOperation) throws Exception {
+        enumResults.add(measure(withParams(name, "impl", "EnumSet", "constants", constants),
+                enumOperation));
+        baselineResults.add(measure(withParams(name, "impl", "HashSet", "constants", constants),
+                baselineOperation));
+        compareResults();
+    }
+
+    /**
+     * Fails if any enum structure was slower than its baseline by more than
+     * the error of the two results.
+     */
+    private void compareResults() {
+        assertEquals(enumResults.size(), baselineResults.size());
+        if (isEnabled()) {
+            for (int i = 0; i < enumResults.size(); i++) {
+                BenchmarkResult e = enumResults.get(i);
+                BenchmarkResult b = baselineResults.get(i);
+                double error = e.getMedianConfidenceInterval()
+                        + b.getMedianConfidenceInterval();
+                if (e.getMedian() > b.getMedian() + error) {
+                    fail(String.format("%s took %.1f ns/op, more than the %.1f ns/op of %s",
+                            e.getName(), e.getMedian(), b.getMedian(), b.getName()));
+                }
+            }
+        }
+        enumResults.clear();
+        baselineResults.clear();
+    }
+}
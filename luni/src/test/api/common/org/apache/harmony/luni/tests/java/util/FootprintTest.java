@@ -0,0 +1,274 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.apache.harmony.testframework.perf.Footprint;
+
+/**
+ * Checks that collections and strings don't retain more heap per element than
+ * their layout calls for. Each structure is measured at a few sizes by
+ * building enough copies of it to hold about the same number of elements in
+ * total, so small sizes include the per-instance overhead and large ones the
+ * per-element cost. The keys, values and chars are created beforehand and
+ * aren't counted.
+ *
+ * <p>Object layouts differ between VMs, so rather than recording budgets per
+ * VM, each structure's budget is worked out from the objects and arrays it's
+ * made of and the reference and header sizes measured by {@link
+ * Footprint#layout}, and allows {@link #SLACK} on top. The field counts are
+ * upper bounds that cover both the JDK's and Dalvik's implementations. A
+ * structure that grows its tables more eagerly or adds whole objects per
+ * element fails. If a change to a structure's layout makes one of these tests
+ * fail and the cost is deliberate, update its expected layout in the same
+ * change.
+ */
+public class FootprintTest extends TestCase {
+
+    private static final int[] SIZES = { 16, 1024, 64 * 1024 };
+
+    /** the total elements measured at each size */
+    private static final int ELEMENTS = 64 * 1024;
+
+    /** how much more than the expected layout a structure may retain */
+    private static final double SLACK = 1.1;
+
+    private static final Integer[] KEYS = new Integer[64 * 1024];
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = new Integer(i);
+        }
+    }
+
+    private static final char[] CHARS = new char[64 * 1024];
+    static {
+        for (int i = 0; i < CHARS.length; i++) {
+            CHARS[i] = (char) ('a' + i % 26);
+        }
+    }
+
+    /** an enum as large as the largest size EnumMap is measured at */
+    enum Key64 {
+        K00, K01, K02, K03, K04, K05, K06, K07, K08, K09, K10, K11, K12, K13, K14, K15,
+        K16, K17, K18, K19, K20, K21, K22, K23, K24, K25, K26, K27, K28, K29, K30, K31,
+        K32, K33, K34, K35, K36, K37, K38, K39, K40, K41, K42, K43, K44, K45, K46, K47,
+        K48, K49, K50, K51, K52, K53, K54, K55, K56, K57, K58, K59, K60, K61, K62, K63
+    }
+
+    /**
+     * Creates a structure holding {@code size} elements.
+     */
+    private interface SizedFactory {
+        Object create(int size);
+    }
+
+    /**
+     * Returns the most bytes a structure of {@code size} elements should
+     * retain with {@code layout}, before the slack.
+     */
+    private interface ExpectedLayout {
+        long bytes(Footprint.Layout layout, int size);
+    }
+
+    public void testHashMap() throws Exception {
+        assertFootprint("HashMap", SIZES, ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        return layout.objectBytes(6, 16) + hashTableBytes(layout, size)
+                                + size * layout.objectBytes(3, 4);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+                        for (int i = 0; i < size; i++) {
+                            map.put(KEYS[i], KEYS[i]);
+                        }
+                        return map;
+                    }
+                });
+    }
+
+    public void testLinkedHashMap() throws Exception {
+        assertFootprint("LinkedHashMap", SIZES, ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        // the entries are linked in order, from a header entry on Dalvik
+                        return layout.objectBytes(8, 20) + hashTableBytes(layout, size)
+                                + (size + 1) * layout.objectBytes(5, 4);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        Map<Integer, Integer> map = new LinkedHashMap<Integer, Integer>();
+                        for (int i = 0; i < size; i++) {
+                            map.put(KEYS[i], KEYS[i]);
+                        }
+                        return map;
+                    }
+                });
+    }
+
+    public void testTreeMap() throws Exception {
+        assertFootprint("TreeMap", SIZES, ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        // nodes hold a key, a value, three links and a color or height
+                        return layout.objectBytes(8, 8) + size * layout.objectBytes(5, 4);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        Map<Integer, Integer> map = new TreeMap<Integer, Integer>();
+                        for (int i = 0; i < size; i++) {
+                            map.put(KEYS[i], KEYS[i]);
+                        }
+                        return map;
+                    }
+                });
+    }
+
+    public void testEnumMap() throws Exception {
+        final Key64[] keys = Key64.values();
+        assertFootprint("EnumMap", new int[] { 4, 16, 64 }, ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        // a value per constant, and on Dalvik a flag per constant too
+                        return layout.objectBytes(7, 12)
+                                + layout.referenceArrayBytes(keys.length)
+                                + layout.arrayBytes(keys.length, 1);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        Map<Key64, Integer> map = new EnumMap<Key64, Integer>(Key64.class);
+                        for (int i = 0; i < size; i++) {
+                            map.put(keys[i], KEYS[i]);
+                        }
+                        return map;
+                    }
+                });
+    }
+
+    public void testArrayList() throws Exception {
+        assertFootprint("ArrayList", SIZES, ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        // grown by half, or by at least 12 elements on Dalvik
+                        long capacity = size + size / 2 + 12;
+                        return layout.objectBytes(1, 8) + layout.referenceArrayBytes(capacity);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        List<Integer> list = new ArrayList<Integer>();
+                        for (int i = 0; i < size; i++) {
+                            list.add(KEYS[i]);
+                        }
+                        return list;
+                    }
+                });
+    }
+
+    /**
+     * Measures dense bit sets, in bytes per bit.
+     */
+    public void testBitSet() throws Exception {
+        assertFootprint("BitSet", SIZES, 64 * ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        return layout.objectBytes(1, 8) + layout.arrayBytes((size + 63) / 64, 8);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        BitSet bits = new BitSet();
+                        bits.set(0, size);
+                        return bits;
+                    }
+                });
+    }
+
+    /**
+     * Measures strings, in bytes per char.
+     */
+    public void testString() throws Exception {
+        assertFootprint("String", SIZES, 16 * ELEMENTS,
+                new ExpectedLayout() {
+                    public long bytes(Footprint.Layout layout, int size) {
+                        // an offset, count and hash with a char array, or fewer fields
+                        // with bytes
+                        return layout.objectBytes(1, 12) + layout.arrayBytes(size, 2);
+                    }
+                },
+                new SizedFactory() {
+                    public Object create(int size) {
+                        return new String(CHARS, 0, size);
+                    }
+                });
+    }
+
+    /**
+     * Returns the size of the table of a hash map of {@code size} entries
+     * with a load factor of 0.75 and power-of-two capacities.
+     */
+    private static long hashTableBytes(Footprint.Layout layout, int size) {
+        long capacity = Long.highestOneBit((size * 4L + 2) / 3 - 1) * 2;
+        return layout.referenceArrayBytes(capacity);
+    }
+
+    /**
+     * Asserts that the structures created by {@code factory} retain no more
+     * than {@code expected} bytes per element, plus the slack, when they hold
+     * {@code sizes[i]} elements.
+     */
+    private void assertFootprint(String name, int[] sizes, int elements,
+            ExpectedLayout expected, final SizedFactory factory) throws Exception {
+        Footprint.Layout layout = Footprint.layout();
+        StringBuilder failures = new StringBuilder();
+        for (int i = 0; i < sizes.length; i++) {
+            final int size = sizes[i];
+            double bytesPerElement = Footprint.retainedBytes(Math.max(1, elements / size),
+                    new Footprint.Factory() {
+                        public Object create() {
+                            return factory.create(size);
+                        }
+                    }) / size;
+            double budget = SLACK * expected.bytes(layout, size) / size;
+            if (bytesPerElement > budget) {
+                failures.append(String.format(Locale.US, "%n  %s of %d retains %.2f bytes"
+                        + " per element, more than its budget of %.2f with %s",
+                        name, size, bytesPerElement, budget, layout));
+            }
+        }
+        if (failures.length() > 0) {
+            fail("Footprint regressed:" + failures);
+        }
+    }
+}
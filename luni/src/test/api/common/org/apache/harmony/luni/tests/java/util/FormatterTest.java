@@ -55,9 +55,17 @@ import java.util.TimeZone;
 import java.util.UnknownFormatConversionException;
 import java.util.Formatter.BigDecimalLayoutForm;
 
-import junit.framework.TestCase;
+import org.apache.harmony.testframework.perf.AllocationBudget;
+import org.apache.harmony.testframework.perf.InstrumentedTestCase;
+
+public class FormatterTest extends InstrumentedTestCase {
+
+    /**
+     * About ten times what the budgeted tests allocate on a host VM, so that
+     * they catch allocation blowups rather than noise.
+     */
+    private static final long FORMAT_BUDGET = 1024 * 1024;
 
-public class FormatterTest extends TestCase {
 	private boolean root;
 
     class MockAppendable implements Appendable {
@@ -1391,6 +1399,7 @@ public class FormatterTest extends TestCase {
      * @tests java.util.Formatter#format(String, Object...) for Character
      *        conversion
      */
+    @AllocationBudget(bytes = FORMAT_BUDGET)
     public void test_formatLjava_lang_String$Ljava_lang_Object_CharacterConversion() {
         Formatter f = new Formatter(Locale.US);
         final Object[] illArgs = { Boolean.TRUE, new Float(1.1f),
@@ -1638,6 +1647,7 @@ public class FormatterTest extends TestCase {
      * @tests java.util.Formatter#format(String, Object...) for legal
      *        Byte/Short/Integer/Long conversion type 'x' and 'X'
      */
+    @AllocationBudget(bytes = FORMAT_BUDGET)
     public void test_formatLjava_lang_String$Ljava_lang_Object_ByteShortIntegerLongConversionX() {
         final Object[][] triple = {
                 { 0,                "%x",                 "0" },
@@ -2543,6 +2553,7 @@ public class FormatterTest extends TestCase {
      * @tests java.util.Formatter#format(String, Object...) for padding of
      *        BigInteger conversion
      */
+    @AllocationBudget(bytes = FORMAT_BUDGET)
     public void test_formatLjava_lang_String$Ljava_lang_Object_BigIntegerPaddingConversion() {
         Formatter f = null;
 
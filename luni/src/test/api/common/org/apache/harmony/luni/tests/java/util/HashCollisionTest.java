@@ -0,0 +1,312 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.LatencyHistogram;
+
+/**
+ * Puts, gets and removes keys that all have the same hashCode, as made by
+ * {@link CollidingKeys}, in HashMap, LinkedHashMap, Hashtable and HashSet.
+ * Every operation is timed on its own, so the worst ones show.
+ *
+ * <p>Colliding keys share a bucket, so a table that searches its buckets
+ * linearly takes time proportional to the number of keys for every
+ * operation. That much is expected. What these tests catch is worse than
+ * that:
+ * <ul>
+ *   <li>For keys whose equals and compareTo calls are counted, no operation
+ *       may make more of them than there are keys in the table, plus {@link
+ *       #EXTRA_PROBES} for a table that orders a crowded bucket.
+ *   <li>With {@code hy.test.benchmarks} set, the p99 latency at {@link
+ *       #GROWTH} times as many keys may be at most {@link #LATENCY_SLACK}
+ *       times {@link #GROWTH} as high, so that operations stay linear in the
+ *       keys they collide with, give or take cache misses. Quadratic
+ *       behaviour, like rescanning a bucket per step, is 8 times past that.
+ *       Each operation's latencies are printed, named
+ *       like {@code get[impl=HashMap,keys=string,n=512]}.
+ * </ul>
+ * The worst case of every single operation is bounded by the probe counts,
+ * which don't depend on timing. The latency gate uses p99 rather than the
+ * maximum, which is one sample and may hold a collection, a compilation or
+ * a descheduled thread; a table that isn't linear slows down most of its
+ * operations, and so its p99. The maximum is still printed.
+ *
+ * <p>{@code hy.test.collision.n} sets the smaller number of keys, 512 by
+ * default with benchmarks enabled. Otherwise it's 64, which is enough for
+ * the probe counts, as every operation on colliding keys is linear anyway,
+ * and keeps the tests quick on a device.
+ */
+public class HashCollisionTest extends BenchmarkCase {
+
+    static final String N_KEY = "hy.test.collision.n";
+
+    private static final int GROWTH = 8;
+    private static final int EXTRA_PROBES = 64;
+    private static final double LATENCY_SLACK = 4.0;
+
+    /** latencies below this are too close to the timer's resolution to compare */
+    private static final long MIN_COMPARED_NANOS = 1000;
+
+    private static final String[] OPERATIONS = { "put", "get", "getAbsent", "remove" };
+
+    private final int n = Integer.getInteger(N_KEY, isEnabled() ? 512 : 64);
+
+    /**
+     * A hash table under test, holding keys with or without values.
+     */
+    private interface Table {
+        /** Adds {@code key} and returns true if it wasn't there already. */
+        boolean add(Object key);
+
+        boolean contains(Object key);
+
+        /** Removes {@code key} and returns true if it was there. */
+        boolean remove(Object key);
+
+        int size();
+    }
+
+    private static Table mapTable(final Map<Object, Object> map) {
+        return new Table() {
+            public boolean add(Object key) {
+                return map.put(key, key) == null;
+            }
+
+            public boolean contains(Object key) {
+                return map.get(key) != null;
+            }
+
+            public boolean remove(Object key) {
+                return map.remove(key) != null;
+            }
+
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    private static Table setTable(final Set<Object> set) {
+        return new Table() {
+            public boolean add(Object key) {
+                return set.add(key);
+            }
+
+            public boolean contains(Object key) {
+                return set.contains(key);
+            }
+
+            public boolean remove(Object key) {
+                return set.remove(key);
+            }
+
+            public int size() {
+                return set.size();
+            }
+        };
+    }
+
+    private interface TableFactory {
+        Table create();
+    }
+
+    public void testHashMap() throws Exception {
+        checkCollisions("HashMap", new TableFactory() {
+            public Table create() {
+                return mapTable(new HashMap<Object, Object>());
+            }
+        });
+    }
+
+    public void testLinkedHashMap() throws Exception {
+        checkCollisions("LinkedHashMap", new TableFactory() {
+            public Table create() {
+                return mapTable(new LinkedHashMap<Object, Object>());
+            }
+        });
+    }
+
+    public void testHashtable() throws Exception {
+        checkCollisions("Hashtable", new TableFactory() {
+            public Table create() {
+                return mapTable(new Hashtable<Object, Object>());
+            }
+        });
+    }
+
+    public void testHashSet() throws Exception {
+        checkCollisions("HashSet", new TableFactory() {
+            public Table create() {
+                return setTable(new HashSet<Object>());
+            }
+        });
+    }
+
+    public void testCollidingKeys() {
+        assertAllCollide(CollidingKeys.strings(1000));
+        assertAllCollide(CollidingKeys.longs(1000));
+        assertAllCollide(CollidingKeys.doubles(1000));
+        assertAllCollide(CollidingKeys.constantHashKeys(1000));
+        assertAllCollide(CollidingKeys.comparableConstantHashKeys(1000));
+    }
+
+    private void assertAllCollide(Object[] keys) {
+        assertEquals("duplicate keys", keys.length,
+                new HashSet<Object>(Arrays.asList(keys)).size());
+        for (Object key : keys) {
+            assertEquals(key.toString(), keys[0].hashCode(), key.hashCode());
+        }
+    }
+
+    /**
+     * Runs the colliding workloads of every kind of key on tables made by
+     * {@code factory}, at n keys and at {@link #GROWTH} times as many.
+     */
+    private void checkCollisions(String impl, TableFactory factory) throws Exception {
+        String[] kinds = { "string", "long", "double", "constant", "comparableConstant" };
+        for (String kind : kinds) {
+            if (isEnabled()) {
+                // the first run is slower while the code is compiled
+                runWorkload(impl, kind, n, factory);
+            }
+            LatencyHistogram[] small = runWorkload(impl, kind, n, factory);
+            LatencyHistogram[] large = runWorkload(impl, kind, GROWTH * n, factory);
+            if (isEnabled()) {
+                print(small);
+                print(large);
+                for (int op = 0; op < OPERATIONS.length; op++) {
+                    long before = Math.max(MIN_COMPARED_NANOS, small[op].getPercentile(99));
+                    long after = large[op].getPercentile(99);
+                    assertTrue(String.format(Locale.US, "p99 of %s on %s with %d colliding %s keys"
+                            + " is %d ns, more than %.0f times the %d ns with %d keys",
+                            OPERATIONS[op], impl, GROWTH * n, kind, after,
+                            LATENCY_SLACK * GROWTH, before, n),
+                            after <= LATENCY_SLACK * GROWTH * before);
+                }
+            }
+        }
+    }
+
+    private static Object[] keys(String kind, int count) {
+        if (kind.equals("string")) {
+            return CollidingKeys.strings(count);
+        } else if (kind.equals("long")) {
+            return CollidingKeys.longs(count);
+        } else if (kind.equals("double")) {
+            return CollidingKeys.doubles(count);
+        } else if (kind.equals("constant")) {
+            return CollidingKeys.constantHashKeys(count);
+        } else {
+            return CollidingKeys.comparableConstantHashKeys(count);
+        }
+    }
+
+    /**
+     * Puts {@code count} colliding keys in a new table, gets each of them
+     * and as many absent ones, then removes them all. Returns the latencies
+     * of each operation, in the order of {@link #OPERATIONS}.
+     */
+    private LatencyHistogram[] runWorkload(String impl, String kind, int count,
+            TableFactory factory) {
+        LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            latencies[op] = latencies(withParams(OPERATIONS[op], "impl", impl, "keys", kind,
+                    "n", count));
+        }
+        Object[] all = keys(kind, 2 * count);
+        Object[] present = Arrays.copyOfRange(all, 0, count);
+        Object[] absent = Arrays.copyOfRange(all, count, 2 * count);
+        Collections.shuffle(Arrays.asList(present), new Random(-1));
+        Collections.shuffle(Arrays.asList(absent), new Random(-2));
+        boolean counted = present[0] instanceof CollidingKeys.ConstantHashKey;
+        String workload = count + " colliding " + kind + " keys in " + impl;
+
+        Table table = factory.create();
+        for (Object key : present) {
+            CollidingKeys.resetProbes();
+            long start = System.nanoTime();
+            boolean added = table.add(key);
+            latencies[0].record(System.nanoTime() - start);
+            checkProbes(counted, "put", table.size(), workload);
+            assertTrue("duplicate " + key + " with " + workload, added);
+        }
+        assertEquals(workload, count, table.size());
+
+        Collections.shuffle(Arrays.asList(present), new Random(-3));
+        for (Object key : present) {
+            CollidingKeys.resetProbes();
+            long start = System.nanoTime();
+            boolean found = table.contains(key);
+            latencies[1].record(System.nanoTime() - start);
+            checkProbes(counted, "get", count, workload);
+            assertTrue("missing " + key + " with " + workload, found);
+        }
+
+        for (Object key : absent) {
+            CollidingKeys.resetProbes();
+            long start = System.nanoTime();
+            boolean found = table.contains(key);
+            latencies[2].record(System.nanoTime() - start);
+            checkProbes(counted, "getAbsent", count, workload);
+            assertFalse("unexpected " + key + " with " + workload, found);
+        }
+
+        for (Object key : present) {
+            int size = table.size();
+            CollidingKeys.resetProbes();
+            long start = System.nanoTime();
+            boolean removed = table.remove(key);
+            latencies[3].record(System.nanoTime() - start);
+            checkProbes(counted, "remove", size, workload);
+            assertTrue("missing " + key + " with " + workload, removed);
+        }
+        assertEquals(workload, 0, table.size());
+
+        return latencies;
+    }
+
+    private static void print(LatencyHistogram[] latencies) {
+        for (LatencyHistogram histogram : latencies) {
+            System.out.println(histogram);
+        }
+    }
+
+    /**
+     * Fails if the operation that just ran on a table of {@code size} keys
+     * probed more keys than the bound.
+     */
+    private static void checkProbes(boolean counted, String operation, int size,
+            String workload) {
+        if (counted && CollidingKeys.getProbes() > size + EXTRA_PROBES) {
+            fail(operation + " made " + CollidingKeys.getProbes()
+                    + " equals and compareTo calls with " + workload + " holding " + size + " keys");
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+/**
+ * Enums of 10, 64, 65, 500 and 2000 constants, on either side of the 64
+ * constants where EnumSet switches from a single word to an array of words.
+ * The constants are named K0000, K0001 and so on. 2000 is near the most that
+ * compiles: javac limits a class initializer to 64KB of code, and each
+ * constant takes about 24 bytes of it.
+ */
+final class LargeEnums {
+
+    private LargeEnums() {
+    }
+
+    enum Enum10 {
+        K0000, K0001, K0002, K0003, K0004, K0005, K0006, K0007, K0008, K0009
+    }
+
+    enum Enum64 {
+        K0000, K0001, K0002, K0003, K0004, K0005, K0006, K0007, K0008, K0009,
+        K0010, K0011, K0012, K0013, K0014, K0015, K0016, K0017, K0018, K0019,
+        K0020, K0021, K0022, K0023, K0024, K0025, K0026, K0027, K0028, K0029,
+        K0030, K0031, K0032, K0033, K0034, K0035, K0036, K0037, K0038, K0039,
+        K0040, K0041, K0042, K0043, K0044, K0045, K0046, K0047, K0048, K0049,
+        K0050, K0051, K0052, K0053, K0054, K0055, K0056, K0057, K0058, K0059,
+        K0060, K0061, K0062, K0063
+    }
+
+    enum Enum65 {
+        K0000, K0001, K0002, K0003, K0004, K0005, K0006, K0007, K0008, K0009,
+        K0010, K0011, K0012, K0013, K0014, K0015, K0016, K0017, K0018, K0019,
+        K0020, K0021, K0022, K0023, K0024, K0025, K0026, K0027, K0028, K0029,
+        K0030, K0031, K0032, K0033, K0034, K0035, K0036, K0037, K0038, K0039,
+        K0040, K0041, K0042, K0043, K0044, K0045, K0046, K0047, K0048, K0049,
+        K0050, K0051, K0052, K0053, K0054, K0055, K0056, K0057, K0058, K0059,
+        K0060, K0061, K0062, K0063, K0064
+    }
+
+    enum Enum500 {
+        K0000, K0001, K0002, K0003, K0004, K0005, K0006, K0007, K0008, K0009,
+        K0010, K0011, K0012, K0013, K0014, K0015, K0016, K0017, K0018, K0019,
+        K0020, K0021, K0022, K0023, K0024, K0025, K0026, K0027, K0028, K0029,
+        K0030, K0031, K0032, K0033, K0034, K0035, K0036, K0037, K0038, K0039,
+        K0040, K0041, K0042, K0043, K0044, K0045, K0046, K0047, K0048, K0049,
+        K0050, K0051, K0052, K0053, K0054, K0055, K0056, K0057, K0058, K0059,
+        K0060, K0061, K0062, K0063, K0064, K0065, K0066, K0067, K0068, K0069,
+        K0070, K0071, K0072, K0073, K0074, K0075, K0076, K0077, K0078, K0079,
+        K0080, K0081, K0082, K0083, K0084, K0085, K0086, K0087, K0088, K0089,
+        K0090, K0091, K0092, K0093, K0094, K0095, K0096, K0097, K0098, K0099,
+        K0100, K0101, K0102, K0103, K0104, K0105, K0106, K0107, K0108, K0109,
+        K0110, K0111, K0112, K0113, K0114, K0115, K0116, K0117, K0118, K0119,
+        K0120, K0121, K0122, K0123, K0124, K0125, K0126, K0127, K0128, K0129,
+        K0130, K0131, K0132, K0133, K0134, K0135, K0136, K0137, K0138, K0139,
+        K0140, K0141, K0142, K0143, K0144, K0145, K0146, K0147, K0148, K0149,
+        K0150, K0151, K0152, K0153, K0154, K0155, K0156, K0157, K0158, K0159,
+        K0160, K0161, K0162, K0163, K0164, K0165, K0166, K0167, K0168, K0169,
+        K0170, K0171, K0172, K0173, K0174, K0175, K0176, K0177, K0178, K0179,
+        K0180, K0181, K0182, K0183, K0184, K0185, K0186, K0187, K0188, K0189,
+        K0190, K0191, K0192, K0193, K0194, K0195, K0196, K0197, K0198, K0199,
+        K0200, K0201, K0202, K0203, K0204, K0205, K0206, K0207, K0208, K0209,
+        K0210, K0211, K0212, K0213, K0214, K0215, K0216, K0217, K0218, K0219,
+        K0220, K0221, K0222, K0223, K0224, K0225, K0226, K0227, K0228, K0229,
+        K0230, K0231, K0232, K0233, K0234, K0235, K0236, K0237, K0238, K0239,
+        K0240, K0241, K0242, K0243, K0244, K0245, K0246, K0247, K0248, K0249,
+        K0250, K0251, K0252, K0253, K0254, K0255, K0256, K0257, K0258, K0259,
+        K0260, K0261, K0262, K0263, K0264, K0265, K0266, K0267, K0268, K0269,
+        K0270, K0271, K0272, K0273, K0274, K0275, K0276, K0277, K0278, K0279,
+        K0280, K0281, K0282, K0283, K0284, K0285, K0286, K0287, K0288, K0289,
+        K0290, K0291, K0292, K0293, K0294, K0295, K0296, K0297, K0298, K0299,
+        K0300, K0301, K0302, K0303, K0304, K0305, K0306, K0307, K0308, K0309,
+        K0310, K0311, K0312, K0313, K0314, K0315, K0316, K0317, K0318, K0319,
+        K0320, K0321, K0322, K0323, K0324, K0325, K0326, K0327, K0328, K0329,
+        K0330, K0331, K0332, K0333, K0334, K0335, K0336, K0337, K0338, K0339,
+        K0340, K0341, K0342, K0343, K0344, K0345, K0346, K0347, K0348, K0349,
+        K0350, K0351, K0352, K0353, K0354, K0355, K0356, K0357, K0358, K0359,
+        K0360, K0361, K0362, K0363, K0364, K0365, K0366, K0367, K0368, K0369,
+        K0370, K0371, K0372, K0373, K0374, K0375, K0376, K0377, K0378, K0379,
+        K0380, K0381, K0382, K0383, K0384, K0385, K0386, K0387, K0388, K0389,
+        K0390, K0391, K0392, K0393, K0394, K0395, K0396, K0397, K0398, K0399,
+        K0400, K0401, K0402, K0403, K0404, K0405, K0406, K0407, K0408, K0409,
+        K0410, K0411, K0412, K0413, K0414, K0415, K0416, K0417, K0418, K0419,
+        K0420, K0421, K0422, K0423, K0424, K0425, K0426, K0427, K0428, K0429,
+        K0430, K0431, K0432, K0433, K0434, K0435, K0436, K0437, K0438, K0439,
+        K0440, K0441, K0442, K0443, K0444, K0445, K0446, K0447, K0448, K0449,
+        K0450, K0451, K0452, K0453, K0454, K0455, K0456, K0457, K0458, K0459,
+        K0460, K0461, K0462, K0463, K0464, K0465, K0466, K0467, K0468, K0469,
+        K0470, K0471, K0472, K0473, K0474, K0475, K0476, K0477, K0478, K0479,
+        K0480, K0481, K0482, K0483, K0484, K0485, K0486, K0487, K0488, K0489,
+        K0490, K0491, K0492, K0493, K0494, K0495, K0496, K0497, K0498, K0499
+    }
+
+    enum Enum2000 {
+        K0000, K0001, K0002, K0003, K0004, K0005, K0006, K0007, K0008, K0009,
+        K0010, K0011, K0012, K0013, K0014, K0015, K0016, K0017, K0018, K0019,
+        K0020, K0021, K0022, K0023, K0024, K0025, K0026, K0027, K0028, K0029,
+        K0030, K0031, K0032, K0033, K0034, K0035, K0036, K0037, K0038, K0039,
+        K0040, K0041, K0042, K0043, K0044, K0045, K0046, K0047, K0048, K0049,
+        K0050, K0051, K0052, K0053, K0054, K0055, K0056, K0057, K0058, K0059,
+        K0060, K0061, K0062, K0063, K0064, K0065, K0066, K0067, K0068, K0069,
+        K0070, K0071, K0072, K0073, K0074, K0075, K0076, K0077, K0078, K0079,
+        K0080, K0081, K0082, K0083, K0084, K0085, K0086, K0087, K0088, K0089,
+        K0090, K0091, K0092, K0093, K0094, K0095, K0096, K0097, K0098, K0099,
+        K0100, K0101, K0102, K0103, K0104, K0105, K0106, K0107, K0108, K0109,
+        K0110, K0111, K0112, K0113, K0114, K0115, K0116, K0117, K0118, K0119,
+        K0120, K0121, K0122, K0123, K0124, K0125, K0126, K0127, K0128, K0129,
+        K0130, K0131, K0132, K0133, K0134, K0135, K0136, K0137, K0138, K0139,
+        K0140, K0141, K0142, K0143, K0144, K0145, K0146, K0147, K0148, K0149,
+        K0150, K0151, K0152, K0153, K0154, K0155, K0156, K0157, K0158, K0159,
+        K0160, K0161, K0162, K0163, K0164, K0165, K0166, K0167, K0168, K0169,
+        K0170, K0171, K0172, K0173, K0174, K0175, K0176, K0177, K0178, K0179,
+        K0180, K0181, K0182, K0183, K0184, K0185, K0186, K0187, K0188, K0189,
+        K0190, K0191, K0192, K0193, K0194, K0195, K0196, K0197, K0198, K0199,
+        K0200, K0201, K0202, K0203, K0204, K0205, K0206, K0207, K0208, K0209,
+        K0210, K0211, K0212, K0213, K0214, K0215, K0216, K0217, K0218, K0219,
+        K0220, K0221, K0222, K0223, K0224, K0225, K0226, K0227, K0228, K0229,
+        K0230, K0231, K0232, K0233, K0234, K0235, K0236, K0237, K0238, K0239,
+        K0240, K0241, K0242, K0243, K0244, K0245, K0246, K0247, K0248, K0249,
+        K0250, K0251, K0252, K0253, K0254, K0255, K0256, K0257, K0258, K0259,
+        K0260, K0261, K0262, K0263, K0264, K0265, K0266, K0267, K0268, K0269,
+        K0270, K0271, K0272, K0273, K0274, K0275, K0276, K0277, K0278, K0279,
+        K0280, K0281, K0282, K0283, K0284, K0285, K0286, K0287, K0288, K0289,
+        K0290, K0291, K0292, K0293, K0294, K0295, K0296, K0297, K0298, K0299,
+        K0300, K0301, K0302, K0303, K0304, K0305, K0306, K0307, K0308, K0309,
+        K0310, K0311, K0312, K0313, K0314, K0315, K0316, K0317, K0318, K0319,
+        K0320, K0321, K0322, K0323, K0324, K0325, K0326, K0327, K0328, K0329,
+        K0330, K0331, K0332, K0333, K0334, K0335, K0336, K0337, K0338, K0339,
+        K0340, K0341, K0342, K0343, K0344, K0345, K0346, K0347, K0348, K0349,
+        K0350, K0351, K0352, K0353, K0354, K0355, K0356, K0357, K0358, K0359,
+        K0360, K0361, K0362, K0363, K0364, K0365, K0366, K0367, K0368, K0369,
+        K0370, K0371, K0372, K0373, K0374, K0375, K0376, K0377, K0378, K0379,
+        K0380, K0381, K0382, K0383, K0384, K0385, K0386, K0387, K0388, K0389,
+        K0390, K0391, K0392, K0393, K0394, K0395, K0396, K0397, K0398, K0399,
+        K0400, K0401, K0402, K0403, K0404, K0405, K0406, K0407, K0408, K0409,
+        K0410, K0411, K0412, K0413, K0414, K0415, K0416, K0417, K0418, K0419,
+        K0420, K0421, K0422, K0423, K0424, K0425, K0426, K0427, K0428, K0429,
+        K0430, K0431, K0432, K0433, K0434, K0435, K0436, K0437, K0438, K0439,
+        K0440, K0441, K0442, K0443, K0444, K0445, K0446, K0447, K0448, K0449,
+        K0450, K0451, K0452, K0453, K0454, K0455, K0456, K0457, K0458, K0459,
+        K0460, K0461, K0462, K0463, K0464, K0465, K0466, K0467, K0468, K0469,
+        K0470, K0471, K0472, K0473, K0474, K0475, K0476, K0477, K0478, K0479,
+        K0480, K0481, K0482, K0483, K0484, K0485, K0486, K0487, K0488, K0489,
+        K0490, K0491, K0492, K0493, K0494, K0495, K0496, K0497, K0498, K0499,
+        K0500, K0501, K0502, K0503, K0504, K0505, K0506, K0507, K0508, K0509,
+        K0510, K0511, K0512, K0513, K0514, K0515, K0516, K0517, K0518, K0519,
+        K0520, K0521, K0522, K0523, K0524, K0525, K0526, K0527, K0528, K0529,
+        K0530, K0531, K0532, K0533, K0534, K0535, K0536, K0537, K0538, K0539,
+        K0540, K0541, K0542, K0543, K0544, K0545, K0546, K0547, K0548, K0549,
+        K0550, K0551, K0552, K0553, K0554, K0555, K0556, K0557, K0558, K0559,
+        K0560, K0561, K0562, K0563, K0564, K0565, K0566, K0567, K0568, K0569,
+        K0570, K0571, K0572, K0573, K0574, K0575, K0576, K0577, K0578, K0579,
+        K0580, K0581, K0582, K0583, K0584, K0585, K0586, K0587, K0588, K0589,
+        K0590, K0591, K0592, K0593, K0594, K0595, K0596, K0597, K0598, K0599,
+        K0600, K0601, K0602, K0603, K0604, K0605, K0606, K0607, K0608, K0609,
+        K0610, K0611, K0612, K0613, K0614, K0615, K0616, K0617, K0618, K0619,
+        K0620, K0621, K0622, K0623, K0624, K0625, K0626, K0627, K0628, K0629,
+        K0630, K0631, K0632, K0633, K0634, K0635, K0636, K0637, K0638, K0639,
+        K0640, K0641, K0642, K0643, K0644, K0645, K0646, K0647, K0648, K0649,
+        K0650, K0651, K0652, K0653, K0654, K0655, K0656, K0657, K0658, K0659,
+        K0660, K0661, K0662, K0663, K0664, K0665, K0666, K0667, K0668, K0669,
+        K0670, K0671, K0672, K0673, K0674, K0675, K0676, K0677, K0678, K0679,
+        K0680, K0681, K0682, K0683, K0684, K0685, K0686, K0687, K0688, K0689,
+        K0690, K0691, K0692, K0693, K0694, K0695, K0696, K0697, K0698, K0699,
+        K0700, K0701, K0702, K0703, K0704, K0705, K0706, K0707, K0708, K0709,
+        K0710, K0711, K0712, K0713, K0714, K0715, K0716, K0717, K0718, K0719,
+        K0720, K0721, K0722, K0723, K0724, K0725, K0726, K0727, K0728, K0729,
+        K0730, K0731, K0732, K0733, K0734, K0735, K0736, K0737, K0738, K0739,
+        K0740, K0741, K0742, K0743, K0744, K0745, K0746, K0747, K0748, K0749,
+        K0750, K0751, K0752, K0753, K0754, K0755, K0756, K0757, K0758, K0759,
+        K0760, K0761, K0762, K0763, K0764, K0765, K0766, K0767, K0768, K0769,
+        K0770, K0771, K0772, K0773, K0774, K0775, K0776, K0777, K0778, K0779,
+        K0780, K0781, K0782, K0783, K0784, K0785, K0786, K0787, K0788, K0789,
+        K0790, K0791, K0792, K0793, K0794, K0795, K0796, K0797, K0798, K0799,
+        K0800, K0801, K0802, K0803, K0804, K0805, K0806, K0807, K0808, K0809,
+        K0810, K0811, K0812, K0813, K0814, K0815, K0816, K0817, K0818, K0819,
+        K0820, K0821, K0822, K0823, K0824, K0825, K0826, K0827, K0828, K0829,
+        K0830, K0831, K0832, K0833, K0834, K0835, K0836, K0837, K0838, K0839,
+        K0840, K0841, K0842, K0843, K0844, K0845, K0846, K0847, K0848, K0849,
+        K0850, K0851, K0852, K0853, K0854, K0855, K0856, K0857, K0858, K0859,
+        K0860, K0861, K0862, K0863, K0864, K0865, K0866, K0867, K0868, K0869,
+        K0870, K0871, K0872, K0873, K0874, K0875, K0876, K0877, K0878, K0879,
+        K0880, K0881, K0882, K0883, K0884, K0885, K0886, K0887, K0888, K0889,
+        K0890, K0891, K0892, K0893, K0894, K0895, K0896, K0897, K0898, K0899,
+        K0900, K0901, K0902, K0903, K0904, K0905, K0906, K0907, K0908, K0909,
+        K0910, K0911, K0912, K0913, K0914, K0915, K0916, K0917, K0918, K0919,
+        K0920, K0921, K0922, K0923, K0924, K0925, K0926, K0927, K0928, K0929,
+        K0930, K0931, K0932, K0933, K0934, K0935, K0936, K0937, K0938, K0939,
+        K0940, K0941, K0942, K0943, K0944, K0945, K0946, K0947, K0948, K0949,
+        K0950, K0951, K0952, K0953, K0954, K0955, K0956, K0957, K0958, K0959,
+        K0960, K0961, K0962, K0963, K0964, K0965, K0966, K0967, K0968, K0969,
+        K0970, K0971, K0972, K0973, K0974, K0975, K0976, K0977, K0978, K0979,
+        K0980, K0981, K0982, K0983, K0984, K0985, K0986, K0987, K0988, K0989,
+        K0990, K0991, K0992, K0993, K0994, K0995, K0996, K0997, K0998, K0999,
+        K1000, K1001, K1002, K1003, K1004, K1005, K1006, K1007, K1008, K1009,
+        K1010, K1011, K1012, K1013, K1014, K1015, K1016, K1017, K1018, K1019,
+        K1020, K1021, K1022, K1023, K1024, K1025, K1026, K1027, K1028, K1029,
+        K1030, K1031, K1032, K1033, K1034, K1035, K1036, K1037, K1038, K1039,
+        K1040, K1041, K1042, K1043, K1044, K1045, K1046, K1047, K1048, K1049,
+        K1050, K1051, K1052, K1053, K1054, K1055, K1056, K1057, K1058, K1059,
+        K1060, K1061, K1062, K1063, K1064, K1065, K1066, K1067, K1068, K1069,
+        K1070, K1071, K1072, K1073, K1074, K1075, K1076, K1077, K1078, K1079,
+        K1080, K1081, K1082, K1083, K1084, K1085, K1086, K1087, K1088, K1089,
+        K1090, K1091, K1092, K1093, K1094, K1095, K1096, K1097, K1098, K1099,
+        K1100, K1101, K1102, K1103, K1104, K1105, K1106, K1107, K1108, K1109,
+        K1110, K1111, K1112, K1113, K1114, K1115, K1116, K1117, K1118, K1119,
+        K1120, K1121, K1122, K1123, K1124, K1125, K1126, K1127, K1128, K1129,
+        K1130, K1131, K1132, K1133, K1134, K1135, K1136, K1137, K1138, K1139,
+        K1140, K1141, K1142, K1143, K1144, K1145, K1146, K1147, K1148, K1149,
+        K1150, K1151, K1152, K1153, K1154, K1155, K1156, K1157, K1158, K1159,
+        K1160, K1161, K1162, K1163, K1164, K1165, K1166, K1167, K1168, K1169,
+        K1170, K1171, K1172, K1173, K1174, K1175, K1176, K1177, K1178, K1179,
+        K1180, K1181, K1182, K1183, K1184, K1185, K1186, K1187, K1188, K1189,
+        K1190, K1191, K1192, K1193, K1194, K1195, K1196, K1197, K1198, K1199,
+        K1200, K1201, K1202, K1203, K1204, K1205, K1206, K1207, K1208, K1209,
+        K1210, K1211, K1212, K1213, K1214, K1215, K1216, K1217, K1218, K1219,
+        K1220, K1221, K1222, K1223, K1224, K1225, K1226, K1227, K1228, K1229,
+        K1230, K1231, K1232, K1233, K1234, K1235, K1236, K1237, K1238, K1239,
+        K1240, K1241, K1242, K1243, K1244, K1245, K1246, K1247, K1248, K1249,
+        K1250, K1251, K1252, K1253, K1254, K1255, K1256, K1257, K1258, K1259,
+        K1260, K1261, K1262, K1263, K1264, K1265, K1266, K1267, K1268, K1269,
+        K1270, K1271, K1272, K1273, K1274, K1275, K1276, K1277, K1278, K1279,
+        K1280, K1281, K1282, K1283, K1284, K1285, K1286, K1287, K1288, K1289,
+        K1290, K1291, K1292, K1293, K1294, K1295, K1296, K1297, K1298, K1299,
+        K1300, K1301, K1302, K1303, K1304, K1305, K1306, K1307, K1308, K1309,
+        K1310, K1311, K1312, K1313, K1314, K1315, K1316, K1317, K1318, K1319,
+        K1320, K1321, K1322, K1323, K1324, K1325, K1326, K1327, K1328, K1329,
+        K1330, K1331, K1332, K1333, K1334, K1335, K1336, K1337, K1338, K1339,
+        K1340, K1341, K1342, K1343, K1344, K1345, K1346, K1347, K1348, K1349,
+        K1350, K1351, K1352, K1353, K1354, K1355, K1356, K1357, K1358, K1359,
+        K1360, K1361, K1362, K1363, K1364, K1365, K1366, K1367, K1368, K1369,
+        K1370, K1371, K1372, K1373, K1374, K1375, K1376, K1377, K1378, K1379,
+        K1380, K1381, K1382, K1383, K1384, K1385, K1386, K1387, K1388, K1389,
+        K1390, K1391, K1392, K1393, K1394, K1395, K1396, K1397, K1398, K1399,
+        K1400, K1401, K1402, K1403, K1404, K1405, K1406, K1407, K1408, K1409,
+        K1410, K1411, K1412, K1413, K1414, K1415, K1416, K1417, K1418, K1419,
+        K1420, K1421, K1422, K1423, K1424, K1425, K1426, K1427, K1428, K1429,
+        K1430, K1431, K1432, K1433, K1434, K1435, K1436, K1437, K1438, K1439,
+        K1440, K1441, K1442, K1443, K1444, K1445, K1446, K1447, K1448, K1449,
+        K1450, K1451, K1452, K1453, K1454, K1455, K1456, K1457, K1458, K1459,
+        K1460, K1461, K1462, K1463, K1464, K1465, K1466, K1467, K1468, K1469,
+        K1470, K1471, K1472, K1473, K1474, K1475, K1476, K1477, K1478, K1479,
+        K1480, K1481, K1482, K1483, K1484, K1485, K1486, K1487, K1488, K1489,
+        K1490, K1491, K1492, K1493, K1494, K1495, K1496, K1497, K1498, K1499,
+        K1500, K1501, K1502, K1503, K1504, K1505, K1506, K1507, K1508, K1509,
+        K1510, K1511, K1512, K1513, K1514, K1515, K1516, K1517, K1518, K1519,
+        K1520, K1521, K1522, K1523, K1524, K1525, K1526, K1527, K1528, K1529,
+        K1530, K1531, K1532, K1533, K1534, K1535, K1536, K1537, K1538, K1539,
+        K1540, K1541, K1542, K1543, K1544, K1545, K1546, K1547, K1548, K1549,
+        K1550, K1551, K1552, K1553, K1554, K1555, K1556, K1557, K1558, K1559,
+        K1560, K1561, K1562, K1563, K1564, K1565, K1566, K1567, K1568, K1569,
+        K1570, K1571, K1572, K1573, K1574, K1575, K1576, K1577, K1578, K1579,
+        K1580, K1581, K1582, K1583, K1584, K1585, K1586, K1587, K1588, K1589,
+        K1590, K1591, K1592, K1593, K1594, K1595, K1596, K1597, K1598, K1599,
+        K1600, K1601, K1602, K1603, K1604, K1605, K1606, K1607, K1608, K1609,
+        K1610, K1611, K1612, K1613, K1614, K1615, K1616, K1617, K1618, K1619,
+        K1620, K1621, K1622, K1623, K1624, K1625, K1626, K1627, K1628, K1629,
+        K1630, K1631, K1632, K1633, K1634, K1635, K1636, K1637, K1638, K1639,
+        K1640, K1641, K1642, K1643, K1644, K1645, K1646, K1647, K1648, K1649,
+        K1650, K1651, K1652, K1653, K1654, K1655, K1656, K1657, K1658, K1659,
+        K1660, K1661, K1662, K1663, K1664, K1665, K1666, K1667, K1668, K1669,
+        K1670, K1671, K1672, K1673, K1674, K1675, K1676, K1677, K1678, K1679,
+        K1680, K1681, K1682, K1683, K1684, K1685, K1686, K1687, K1688, K1689,
+        K1690, K1691, K1692, K1693, K1694, K1695, K1696, K1697, K1698, K1699,
+        K1700, K1701, K1702, K1703, K1704, K1705, K1706, K1707, K1708, K1709,
+        K1710, K1711, K1712, K1713, K1714, K1715, K1716, K1717, K1718, K1719,
+        K1720, K1721, K1722, K1723, K1724, K1725, K1726, K1727, K1728, K1729,
+        K1730, K1731, K1732, K1733, K1734, K1735, K1736, K1737, K1738, K1739,
+        K1740, K1741, K1742, K1743, K1744, K1745, K1746, K1747, K1748, K1749,
+        K1750, K1751, K1752, K1753, K1754, K1755, K1756, K1757, K1758, K1759,
+        K1760, K1761, K1762, K1763, K1764, K1765, K1766, K1767, K1768, K1769,
+        K1770, K1771, K1772, K1773, K1774, K1775, K1776, K1777, K1778, K1779,
+        K1780, K1781, K1782, K1783, K1784, K1785, K1786, K1787, K1788, K1789,
+        K1790, K1791, K1792, K1793, K1794, K1795, K1796, K1797, K1798, K1799,
+        K1800, K1801, K1802, K1803, K1804, K1805, K1806, K1807, K1808, K1809,
+        K1810, K1811, K1812, K1813, K1814, K1815, K1816, K1817, K1818, K1819,
+        K1820, K1821, K1822, K1823, K1824, K1825, K1826, K1827, K1828, K1829,
+        K1830, K1831, K1832, K1833, K1834, K1835, K1836, K1837, K1838, K1839,
+        K1840, K1841, K1842, K1843, K1844, K1845, K1846, K1847, K1848, K1849,
+        K1850, K1851, K1852, K1853, K1854, K1855, K1856, K1857, K1858, K1859,
+        K1860, K1861, K1862, K1863, K1864, K1865, K1866, K1867, K1868, K1869,
+        K1870, K1871, K1872, K1873, K1874, K1875, K1876, K1877, K1878, K1879,
+        K1880, K1881, K1882, K1883, K1884, K1885, K1886, K1887, K1888, K1889,
+        K1890, K1891, K1892, K1893, K1894, K1895, K1896, K1897, K1898, K1899,
+        K1900, K1901, K1902, K1903, K1904, K1905, K1906, K1907, K1908, K1909,
+        K1910, K1911, K1912, K1913, K1914, K1915, K1916, K1917, K1918, K1919,
+        K1920, K1921, K1922, K1923, K1924, K1925, K1926, K1927, K1928, K1929,
+        K1930, K1931, K1932, K1933, K1934, K1935, K1936, K1937, K1938, K1939,
+        K1940, K1941, K1942, K1943, K1944, K1945, K1946, K1947, K1948, K1949,
+        K1950, K1951, K1952, K1953, K1954, K1955, K1956, K1957, K1958, K1959,
+        K1960, K1961, K1962, K1963, K1964, K1965, K1966, K1967, K1968, K1969,
+        K1970, K1971, K1972, K1973, K1974, K1975, K1976, K1977, K1978, K1979,
+        K1980, K1981, K1982, K1983, K1984, K1985, K1986, K1987, K1988, K1989,
+        K1990, K1991, K1992, K1993, K1994, K1995, K1996, K1997, K1998, K1999
+    }
+}
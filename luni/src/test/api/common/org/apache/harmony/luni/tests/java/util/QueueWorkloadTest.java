@@ -0,0 +1,311 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.LatencyHistogram;
+
+/**
+ * Drives PriorityQueue and ArrayDeque the way schedulers do: a PriorityQueue
+ * of Integers in natural order, one of timer deadlines ordered by a
+ * Comparator, and an ArrayDeque as a FIFO work queue. At each size from
+ * 1000 to {@code hy.test.queue.maxn}, 100000 by default and 10000000 for
+ * scheduler-sized queues, each queue
+ * <ul>
+ *   <li>grows, filled by offers from its default capacity, and again from a
+ *       capacity of the size, so the difference is the cost of resizing;
+ *   <li>stays at that size through {@code hy.test.queue.ops} operations,
+ *       65536 by default, that poll and offer in pairs or peek, with a
+ *       remove(Object) of a just offered element every {@link
+ *       #REMOVE_INTERVAL};
+ *   <li>drains, polling every element, which must come out in order.
+ * </ul>
+ *
+ * <p>Every operation is timed on its own. The Comparator's calls are
+ * counted, and no operation on the heap of deadlines may make more than 2
+ * log2 n + 2 of them. With {@code hy.test.benchmarks} set, each operation's
+ * latencies are printed, named like {@code
+ * poll[impl=PriorityQueue,order=comparator,n=1000]}, along with the cost of
+ * resizing per offer while growing, named like {@code resize[...]}.
+ */
+public class QueueWorkloadTest extends BenchmarkCase {
+
+    static final String MAX_N_KEY = "hy.test.queue.maxn";
+    static final String OPS_KEY = "hy.test.queue.ops";
+
+    /** remove(Object) is linear, so only one steady operation in this many is one */
+    private static final int REMOVE_INTERVAL = 1024;
+
+    private final int maxN = Integer.getInteger(MAX_N_KEY, 100000);
+    private final int ops = Integer.getInteger(OPS_KEY, 1 << 16);
+
+    /**
+     * A timer's deadline, which has no natural order.
+     */
+    static final class Deadline {
+        final long at;
+        final int id;
+
+        Deadline(long at, int id) {
+            this.at = at;
+            this.id = id;
+        }
+
+        @Override public String toString() {
+            return "Deadline(" + at + ", " + id + ")";
+        }
+    }
+
+    /** the calls made to {@link #BY_DEADLINE} */
+    static int comparisons;
+
+    static final Comparator<Deadline> BY_DEADLINE = new Comparator<Deadline>() {
+        public int compare(Deadline a, Deadline b) {
+            comparisons++;
+            return a.at < b.at ? -1 : (a.at > b.at ? 1 : 0);
+        }
+    };
+
+    /**
+     * A kind of queue under test and the elements it holds.
+     */
+    private static abstract class Workload<E> {
+        final String impl;
+        final String order;
+
+        Workload(String impl, String order) {
+            this.impl = impl;
+            this.order = order;
+        }
+
+        /** Returns a new queue of {@code capacity}, or of the default capacity if 0. */
+        abstract Queue<E> create(int capacity);
+
+        abstract E next(Random rnd);
+
+        /** Returns true if {@code next} may be polled after {@code previous}. */
+        abstract boolean inOrder(E previous, E next);
+
+        /** Returns true if the queue's comparisons are counted in {@link #comparisons}. */
+        boolean counted() {
+            return false;
+        }
+
+        String name(String operation, int n, Object... more) {
+            Object[] params = new Object[6 + more.length];
+            params[0] = "impl";
+            params[1] = impl;
+            params[2] = "order";
+            params[3] = order;
+            params[4] = "n";
+            params[5] = n;
+            System.arraycopy(more, 0, params, 6, more.length);
+            return withParams(operation, params);
+        }
+    }
+
+    public void testPriorityQueueNatural() throws Exception {
+        checkWorkload(new Workload<Integer>("PriorityQueue", "natural") {
+            Queue<Integer> create(int capacity) {
+                return capacity == 0 ? new PriorityQueue<Integer>()
+                        : new PriorityQueue<Integer>(capacity);
+            }
+
+            Integer next(Random rnd) {
+                return rnd.nextInt();
+            }
+
+            boolean inOrder(Integer previous, Integer next) {
+                return previous <= next;
+            }
+        });
+    }
+
+    public void testPriorityQueueComparator() throws Exception {
+        checkWorkload(new Workload<Deadline>("PriorityQueue", "comparator") {
+            int id;
+
+            Queue<Deadline> create(int capacity) {
+                // the default capacity of PriorityQueue is 11
+                return new PriorityQueue<Deadline>(capacity == 0 ? 11 : capacity, BY_DEADLINE);
+            }
+
+            Deadline next(Random rnd) {
+                return new Deadline(rnd.nextLong() >>> 1, id++);
+            }
+
+            boolean inOrder(Deadline previous, Deadline next) {
+                return previous.at <= next.at;
+            }
+
+            @Override boolean counted() {
+                return true;
+            }
+        });
+    }
+
+    public void testArrayDeque() throws Exception {
+        checkWorkload(new Workload<Integer>("ArrayDeque", "fifo") {
+            int sequence;
+
+            Queue<Integer> create(int capacity) {
+                return capacity == 0 ? new ArrayDeque<Integer>()
+                        : new ArrayDeque<Integer>(capacity);
+            }
+
+            Integer next(Random rnd) {
+                return sequence++;
+            }
+
+            boolean inOrder(Integer previous, Integer next) {
+                return previous < next;
+            }
+        });
+    }
+
+    private <E> void checkWorkload(Workload<E> workload) throws Exception {
+        for (int n = 1000; n <= maxN; n *= 10) {
+            if (isEnabled()) {
+                // the first run is slower while the code is compiled
+                runWorkload(workload, n);
+            }
+            runWorkload(workload, n);
+        }
+    }
+
+    /**
+     * Grows two queues to {@code n} elements, one from its default capacity
+     * and one from a capacity of n, runs the steady operations on the first
+     * and drains both.
+     */
+    private <E> void runWorkload(Workload<E> workload, int n) {
+        Random rnd = new Random(n);
+        LatencyHistogram growing = latencies(workload.name("offer", n, "capacity", "default"));
+        LatencyHistogram presized = latencies(workload.name("offer", n, "capacity", n));
+        Queue<E> queue = workload.create(0);
+        Queue<E> presizedQueue = workload.create(n);
+        fill(workload, queue, n, rnd, growing);
+        fill(workload, presizedQueue, n, rnd, presized);
+
+        LatencyHistogram offer = latencies(workload.name("offer", n));
+        LatencyHistogram poll = latencies(workload.name("poll", n));
+        LatencyHistogram peek = latencies(workload.name("peek", n));
+        LatencyHistogram remove = latencies(workload.name("remove", n));
+        for (int i = 1; i <= ops; i++) {
+            if (i % REMOVE_INTERVAL == 0) {
+                E e = workload.next(rnd);
+                queue.offer(e);
+                comparisons = 0;
+                long start = System.nanoTime();
+                boolean removed = queue.remove(e);
+                remove.record(System.nanoTime() - start);
+                checkComparisons(workload, "remove", n + 1);
+                assertTrue("missing " + e + " in " + workload.impl, removed);
+            } else if (rnd.nextBoolean()) {
+                comparisons = 0;
+                long start = System.nanoTime();
+                E e = queue.poll();
+                poll.record(System.nanoTime() - start);
+                checkComparisons(workload, "poll", n);
+                assertNotNull(e);
+                e = workload.next(rnd);
+                comparisons = 0;
+                start = System.nanoTime();
+                queue.offer(e);
+                offer.record(System.nanoTime() - start);
+                checkComparisons(workload, "offer", n);
+            } else {
+                long start = System.nanoTime();
+                E e = queue.peek();
+                peek.record(System.nanoTime() - start);
+                assertNotNull(e);
+            }
+        }
+        assertEquals(workload.impl + " size", n, queue.size());
+
+        LatencyHistogram drain = latencies(workload.name("drain", n));
+        drain(workload, queue, n, drain);
+        drain(workload, presizedQueue, n, null);
+
+        if (isEnabled()) {
+            for (LatencyHistogram histogram : new LatencyHistogram[] {
+                    growing, presized, offer, poll, peek, remove, drain }) {
+                System.out.println(histogram);
+            }
+            printResult(workload.name("resize", n), "%.1f ns/op max=%d",
+                    growing.getMean() - presized.getMean(), growing.getMax());
+        }
+    }
+
+    private <E> void fill(Workload<E> workload, Queue<E> queue, int n, Random rnd,
+            LatencyHistogram latencies) {
+        for (int i = 0; i < n; i++) {
+            E e = workload.next(rnd);
+            comparisons = 0;
+            long start = System.nanoTime();
+            boolean added = queue.offer(e);
+            latencies.record(System.nanoTime() - start);
+            checkComparisons(workload, "offer", i + 1);
+            assertTrue(added);
+        }
+        assertEquals(workload.impl + " size", n, queue.size());
+    }
+
+    /**
+     * Polls all {@code n} elements of {@code queue}, checking their order,
+     * and records the latencies in {@code latencies} unless it's null.
+     */
+    private <E> void drain(Workload<E> workload, Queue<E> queue, int n,
+            LatencyHistogram latencies) {
+        E previous = null;
+        for (int i = 0; i < n; i++) {
+            comparisons = 0;
+            long start = System.nanoTime();
+            E e = queue.poll();
+            if (latencies != null) {
+                latencies.record(System.nanoTime() - start);
+            }
+            checkComparisons(workload, "poll", n - i);
+            assertNotNull(workload.impl + " drained after " + i + " of " + n, e);
+            if (previous != null && !workload.inOrder(previous, e)) {
+                fail(workload.impl + " polled " + e + " after " + previous);
+            }
+            previous = e;
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Fails if the operation that just ran on a queue of {@code size}
+     * elements made more comparisons than a binary heap needs.
+     */
+    private static void checkComparisons(Workload<?> workload, String operation, int size) {
+        int log2 = 31 - Integer.numberOfLeadingZeros(size);
+        if (workload.counted() && comparisons > 2 * log2 + 2) {
+            fail(operation + " made " + comparisons + " comparisons in " + workload.impl
+                    + " of " + size + " elements");
+        }
+    }
+}
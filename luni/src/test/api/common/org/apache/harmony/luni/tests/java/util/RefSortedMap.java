@@ -147,6 +147,20 @@ public class RefSortedMap<K, V> extends java.util.AbstractMap<K, V>
                     };
                 }
 
+                @SuppressWarnings("unchecked")
+                @Override
+                public boolean contains(Object object) {
+                    if (!(object instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+                    if (!isInRange((K) entry.getKey())) {
+                        return false;
+                    }
+                    int idx = bsearch(entry.getKey());
+                    return idx >= 0 && entries.get(idx).equals(entry);
+                }
+
                 @Override
                 public int size() {
                     try {
@@ -163,6 +177,18 @@ public class RefSortedMap<K, V> extends java.util.AbstractMap<K, V>
             };
         }
 
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean containsKey(Object key) {
+            return isInRange((K) key) && RefSortedMap.this.containsKey(key);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V get(Object key) {
+            return isInRange((K) key) ? RefSortedMap.this.get(key) : null;
+        }
+
         public Comparator<? super K> comparator() {
             return RefSortedMap.this.comparator();
         }
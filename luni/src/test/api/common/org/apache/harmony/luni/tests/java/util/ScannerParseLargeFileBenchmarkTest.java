@@ -19,24 +19,30 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Scanner;
 
-import junit.framework.TestCase;
+import org.apache.harmony.testframework.perf.BenchmarkCase;
 
-public class ScannerParseLargeFileBenchmarkTest extends TestCase {
+public class ScannerParseLargeFileBenchmarkTest extends BenchmarkCase {
 
     /**
      * This test will check when parse a large file like more than 200M bytes if
      * the Scanner will exhaust all heap memory
      */
     public void testParseLargeFile() throws Exception {
-        MyReader reader = new MyReader();
-        String delimiter = "\r?\n";
-        Scanner scanner = new Scanner(reader).useDelimiter(delimiter);
+        measure("parseLargeFile", new Operation() {
+            public void run(int reps) throws Exception {
+                for (int i = 0; i < reps; i++) {
+                    MyReader reader = new MyReader();
+                    String delimiter = "\r?\n";
+                    Scanner scanner = new Scanner(reader).useDelimiter(delimiter);
 
-        while (scanner.hasNext()) {
-            scanner.next();
-        }
-        scanner.close();
-        reader.close();
+                    while (scanner.hasNext()) {
+                        blackhole.consume(scanner.next());
+                    }
+                    scanner.close();
+                    reader.close();
+                }
+            }
+        });
     }
 
     private static class MyReader extends Reader {
@@ -23,9 +23,12 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
@@ -33,22 +36,88 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
-import junit.framework.TestCase;
+import junit.framework.AssertionFailedError;
 
-public abstract class SortedMapTestBase extends TestCase {
-    
-    final int N = 1000;
-    final int TRIES = 100; 
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+
+/**
+ * Compares a SortedMap implementation, {@code map}, with a reference one,
+ * {@code ref}, over the same random operations. Subclasses create {@code ref}
+ * before calling {@link #setUp}, which fills it with about N random entries
+ * with even keys, and create {@code map} from it afterwards.
+ *
+ * <p>The workload is configured by system properties:
+ * <ul>
+ *   <li>{@code hy.test.sortedmap.n}, the number of random entries, 1000 by
+ *       default. Millions work, given the heap for both maps.
+ *   <li>{@code hy.test.sortedmap.tries}, the number of random operations
+ *       per test, 100 by default. Tests that remove or put entry after entry
+ *       do at most ten times as many, so that a large N doesn't make them
+ *       quadratic in the reference map.
+ *   <li>{@code hy.test.sortedmap.seed}, the seed of the random operations,
+ *       -1 by default, or "random" for a new seed each run. Failures report
+ *       the seed, so that a random run can be repeated.
+ * </ul>
+ *
+ * <p>The {@code testBenchmark*} methods time get, put, remove and view
+ * iteration on both maps, named like {@code get[impl=TreeMap,n=1000]}.
+ */
+public abstract class SortedMapTestBase extends BenchmarkCase {
+
+    static final String N_KEY = "hy.test.sortedmap.n";
+    static final String TRIES_KEY = "hy.test.sortedmap.tries";
+    static final String SEED_KEY = "hy.test.sortedmap.seed";
+
+    /** the number of keys the benchmarks cycle through */
+    private static final int BENCHMARK_KEYS = 1024;
+
+    /** the number of keys each subMap iterated by the benchmarks spans */
+    private static final int BENCHMARK_SPAN = 64;
+
+    final int N = Integer.getInteger(N_KEY, 1000);
+    final int TRIES = Integer.getInteger(TRIES_KEY, 100);
+    final int OPS = (int) Math.min(N, 10L * TRIES);
+    final long SEED = seed();
     
     SortedMap<Integer, Integer> map;
     SortedMap<Integer, Integer> ref;
     
     Random rnd;
+
+    /**
+     * The iterator removals left to the current test. Each takes linear time
+     * in the reference, so a test does at most OPS of them.
+     */
+    int removals = OPS;
     
+    private static long seed() {
+        String seed = System.getProperty(SEED_KEY, "-1");
+        return seed.equals("random") ? System.nanoTime() : Long.parseLong(seed);
+    }
+
     protected void setUp() throws Exception {
-        rnd = new Random(-1);
+        rnd = new Random(SEED);
+        // collect the entries first and add them to the reference in order,
+        // since inserting into the middle of RefSortedMap takes linear time
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
         for (int i = 0;  i < N ; i++) {
-            ref.put(rnd.nextInt(N) * 2, rnd.nextBoolean() ? null : rnd.nextInt(N) * 2);
+            entries.put(rnd.nextInt(N) * 2, rnd.nextBoolean() ? null : rnd.nextInt(N) * 2);
+        }
+        Integer[] keys = entries.keySet().toArray(new Integer[entries.size()]);
+        Arrays.sort(keys, ref.comparator());
+        for (Integer key : keys) {
+            ref.put(key, entries.get(key));
+        }
+    }
+
+    @Override protected void runTest() throws Throwable {
+        try {
+            super.runTest();
+        } catch (AssertionFailedError e) {
+            AssertionFailedError withWorkload = new AssertionFailedError(
+                    "N=" + N + " TRIES=" + TRIES + " seed=" + SEED + ": " + e.getMessage());
+            withWorkload.setStackTrace(e.getStackTrace());
+            throw withWorkload;
         }
     }
         
@@ -100,7 +169,8 @@ public abstract class SortedMapTestBase extends TestCase {
         Iterator<Integer> j = map.keySet().iterator();
         while (i.hasNext()) {           
             assertEquals(i.next(), j.next());
-            if (rnd.nextBoolean()) {
+            if (rnd.nextBoolean() && removals > 0) {
+                removals--;
                 j.remove();
                 i.remove();
             }
@@ -121,7 +191,7 @@ public abstract class SortedMapTestBase extends TestCase {
     public final void testPut0() {
         ref.clear();
         map.clear();
-        for (int i = 0; i < N; i++) {
+        for (int i = 0; i < OPS; i++) {
             int key = rnd.nextInt(N);
             int value = rnd.nextInt(N);
             assertEquals(ref.put(key, value), map.put(key, value));
@@ -141,21 +211,23 @@ public abstract class SortedMapTestBase extends TestCase {
 
     
     public final void testRemove() {
-        for (int i = 0; i < N; i++) {
+        int checkEvery = Math.max(1, OPS / TRIES);
+        for (int i = 0; i < OPS; i++) {
             int key = rnd.nextInt(N);
             assertEquals(ref.remove(key), map.remove(key));
-            if (i % (N / TRIES) == 0) {
+            if (i % checkEvery == 0) {
                 assertEquals(ref, map);
             }
         }       
     }
 
     public final void testRemove0() {
-        while (!ref.isEmpty()) {
+        for (int i = 0; i < OPS && !ref.isEmpty(); i++) {
             int key = ref.tailMap((ref.firstKey() + ref.lastKey()) / 2)
                 .firstKey();
             assertEquals(ref.remove(key), map.remove(key));
         }       
+        assertEquals(ref.size(), map.size());
     }
     
     public final void testSize() {
@@ -165,20 +237,30 @@ public abstract class SortedMapTestBase extends TestCase {
     
     public final void testValues() {
         assertEquals(ref.values().size(), map.values().size());
-        assertTrue(ref.values().containsAll(map.values()));
-        assertTrue(map.values().containsAll(ref.values()));
+        // values().contains() is a linear search, so check at most OPS values
+        assertContainsAll(ref.values(), map.values());
+        assertContainsAll(map.values(), ref.values());
         
         Iterator<Integer> i = ref.values().iterator();
         Iterator<Integer> j = map.values().iterator();
         while (i.hasNext()) {
             assertEquals(i.next(), j.next());
-            if (rnd.nextBoolean()) {
+            if (rnd.nextBoolean() && removals > 0) {
+                removals--;
                 j.remove();
                 i.remove();
             }
         }
     }
                 
+    private void assertContainsAll(Collection<Integer> values, Collection<Integer> expected) {
+        Iterator<Integer> i = expected.iterator();
+        for (int checked = 0; checked < OPS && i.hasNext(); checked++) {
+            Integer value = i.next();
+            assertTrue(value + " missing", values.contains(value));
+        }
+    }
+
     public final void testComparator() {
         assertEquals(ref.comparator(), map.comparator());
     }
@@ -338,7 +420,8 @@ public abstract class SortedMapTestBase extends TestCase {
         Iterator j = map.iterator();
         while (i.hasNext()) {
             assertEquals(i.next(), j.next());
-            if (rnd.nextBoolean()) {
+            if (rnd.nextBoolean() && removals > 0) {
+                removals--;
                 j.remove();
                 i.remove();             
                 assertEquals(ref.size(), map.size());
@@ -365,5 +448,141 @@ public abstract class SortedMapTestBase extends TestCase {
         map2.remove(map2.lastKey());
         assertFalse(ref.equals(map2));
     }
-    
+
+    public final void testBenchmarkGet() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("get", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        blackhole.consume(m.get(keys[i & (BENCHMARK_KEYS - 1)]));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times replacing the values of present keys, which leaves the map's
+     * structure as it is.
+     */
+    public final void testBenchmarkPut() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("put", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        blackhole.consume(m.put(keys[i & (BENCHMARK_KEYS - 1)], i));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times removing keys, each of which is then put back so that the map
+     * keeps its size. The time includes both.
+     */
+    public final void testBenchmarkRemove() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("remove", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        int key = keys[i & (BENCHMARK_KEYS - 1)];
+                        Integer value = m.remove(key);
+                        m.put(key, value);
+                        blackhole.consume(value);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times iterating over subMaps of {@link #BENCHMARK_SPAN} keys.
+     */
+    public final void testBenchmarkSubMap() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("subMap", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        int from = keys[i & (BENCHMARK_KEYS - 1)];
+                        int to = from + 2 * BENCHMARK_SPAN;
+                        SortedMap<Integer, Integer> view = m.comparator() == null
+                                || m.comparator().compare(from, to) < 0
+                                ? m.subMap(from, to) : m.subMap(to, from);
+                        iterate(view);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times iterating over headMaps, which hold half the map on average.
+     */
+    public final void testBenchmarkHeadMap() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("headMap", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        iterate(m.headMap(keys[i & (BENCHMARK_KEYS - 1)]));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times iterating over tailMaps, which hold half the map on average.
+     */
+    public final void testBenchmarkTailMap() throws Exception {
+        final int[] keys = benchmarkKeys();
+        for (final SortedMap<Integer, Integer> m : benchmarkedMaps()) {
+            measure(benchmarkName("tailMap", m), new Operation() {
+                public void run(int reps) {
+                    for (int i = 0; i < reps; i++) {
+                        iterate(m.tailMap(keys[i & (BENCHMARK_KEYS - 1)]));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the maps to benchmark: the tested map, and the reference so
+     * that there's something to compare it with.
+     */
+    private List<SortedMap<Integer, Integer>> benchmarkedMaps() {
+        List<SortedMap<Integer, Integer>> result = new ArrayList<SortedMap<Integer, Integer>>();
+        result.add(map);
+        result.add(ref);
+        return result;
+    }
+
+    private String benchmarkName(String operation, SortedMap<Integer, Integer> m) {
+        return withParams(operation, "impl", m.getClass().getSimpleName(), "n", N);
+    }
+
+    /**
+     * Returns keys picked at random from those in the maps.
+     */
+    private int[] benchmarkKeys() {
+        Integer[] present = ref.keySet().toArray(new Integer[ref.size()]);
+        assertTrue("no keys to benchmark with", present.length > 0);
+        int[] keys = new int[BENCHMARK_KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = present[rnd.nextInt(present.length)];
+        }
+        return keys;
+    }
+
+    private void iterate(SortedMap<Integer, Integer> view) {
+        for (Map.Entry<Integer, Integer> e : view.entrySet()) {
+            blackhole.consume(e.getValue());
+        }
+    }
 }
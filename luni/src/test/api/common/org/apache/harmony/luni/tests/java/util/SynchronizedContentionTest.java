@@ -0,0 +1,424 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Stack;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+
+/**
+ * Runs mixed read and write workloads on the monitor-guarded collections,
+ * the Collections.synchronized* wrappers, Vector, Stack and Hashtable, with
+ * 1, 2, 4 and so on up to {@code hy.test.contention.threads} threads. That's
+ * twice the number of processors, and at least 4, by default.
+ *
+ * <p>Each write knows how it changed the size: map and set writes touch
+ * only the writing thread's keys, and list removals check the size while
+ * holding the list's monitor. The rest of the writes are read-modify-write
+ * increments of shared counters, done while holding the collection's
+ * monitor, as the synchronized wrappers document. After each run the test checks that:
+ * <ul>
+ *   <li>the size is the initial size plus every thread's changes, and
+ *   <li>the counters add up to the increments made, so that no update was
+ *       lost because the monitor held by the caller didn't exclude the
+ *       collection's own methods.
+ * </ul>
+ *
+ * <p>Without {@code hy.test.benchmarks}, each thread does {@code
+ * hy.test.contention.ops} operations, 10000 by default. With it, each thread
+ * count runs for {@code hy.test.benchmark.millis} after a warm-up run, and
+ * the throughput is printed in ops/s, named like {@code
+ * mixed[impl=Vector,threads=4]}, with its ratio to the single-threaded
+ * throughput as {@code scaling}.
+ */
+public class SynchronizedContentionTest extends BenchmarkCase {
+
+    static final String THREADS_KEY = "hy.test.contention.threads";
+    static final String OPS_KEY = "hy.test.contention.ops";
+
+    /** the percentage of operations that only read */
+    private static final int READ_PERCENT = 80;
+
+    /** the number of shared counters */
+    private static final int COUNTERS = 16;
+
+    /** the number of keys each thread adds and removes */
+    private static final int KEYS_PER_THREAD = 1024;
+
+    private final int maxThreads = Integer.getInteger(THREADS_KEY,
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private final int opsPerThread = Integer.getInteger(OPS_KEY, 10000);
+
+    /**
+     * A collection under test. Writes must be safe to call concurrently,
+     * and know how they changed the size whatever other threads do.
+     */
+    private static abstract class Workload {
+        /** Reads from the collection without changing it. */
+        abstract void read(Random rnd);
+
+        /**
+         * Adds or removes one of {@code thread}'s keys, and returns the
+         * change in size.
+         */
+        abstract int write(int thread, Random rnd);
+
+        /** Increments a counter, holding the collection's monitor. */
+        abstract void increment(int counter);
+
+        /** Returns the sum of the counters, or -1 if there are none. */
+        abstract long counterTotal();
+
+        abstract int size();
+    }
+
+    private interface WorkloadFactory {
+        Workload create();
+    }
+
+    private static class MapWorkload extends Workload {
+        private final Map<Integer, Integer> map;
+
+        MapWorkload(Map<Integer, Integer> map) {
+            this.map = map;
+            for (int i = 0; i < COUNTERS; i++) {
+                map.put(-1 - i, 0);
+            }
+        }
+
+        void read(Random rnd) {
+            map.get(rnd.nextInt(KEYS_PER_THREAD * 4) - COUNTERS);
+        }
+
+        int write(int thread, Random rnd) {
+            Integer key = thread * KEYS_PER_THREAD + rnd.nextInt(KEYS_PER_THREAD);
+            if (rnd.nextBoolean()) {
+                return map.put(key, key) == null ? 1 : 0;
+            } else {
+                return map.remove(key) != null ? -1 : 0;
+            }
+        }
+
+        void increment(int counter) {
+            synchronized (map) {
+                map.put(-1 - counter, map.get(-1 - counter) + 1);
+            }
+        }
+
+        long counterTotal() {
+            long total = 0;
+            for (int i = 0; i < COUNTERS; i++) {
+                total += map.get(-1 - i);
+            }
+            return total;
+        }
+
+        int size() {
+            return map.size();
+        }
+    }
+
+    /**
+     * Appends and removes elements at the end of a list whose first {@link
+     * #COUNTERS} elements are counters. A removal checks the size and removes
+     * while holding the list's monitor, so the end it removes is still there.
+     * Elements are interchangeable, so a thread's removal of another's
+     * element counts the same.
+     */
+    private static class ListWorkload extends Workload {
+        final List<Integer> list;
+
+        ListWorkload(List<Integer> list) {
+            this.list = list;
+            for (int i = 0; i < COUNTERS; i++) {
+                list.add(0);
+            }
+        }
+
+        void read(Random rnd) {
+            list.get(rnd.nextInt(COUNTERS));
+        }
+
+        int write(int thread, Random rnd) {
+            if (rnd.nextBoolean()) {
+                list.add(thread);
+                return 1;
+            }
+            synchronized (list) {
+                if (list.size() > COUNTERS) {
+                    list.remove(list.size() - 1);
+                    return -1;
+                }
+                return 0;
+            }
+        }
+
+        void increment(int counter) {
+            synchronized (list) {
+                list.set(counter, list.get(counter) + 1);
+            }
+        }
+
+        long counterTotal() {
+            long total = 0;
+            for (int i = 0; i < COUNTERS; i++) {
+                total += list.get(i);
+            }
+            return total;
+        }
+
+        int size() {
+            return list.size();
+        }
+    }
+
+    /**
+     * A ListWorkload that reads with peek and writes with push and pop.
+     */
+    private static class StackWorkload extends ListWorkload {
+        private final Stack<Integer> stack;
+
+        StackWorkload(Stack<Integer> stack) {
+            super(stack);
+            this.stack = stack;
+        }
+
+        @Override void read(Random rnd) {
+            stack.peek();
+        }
+
+        @Override int write(int thread, Random rnd) {
+            if (rnd.nextBoolean()) {
+                stack.push(thread);
+                return 1;
+            }
+            synchronized (stack) {
+                if (stack.size() > COUNTERS) {
+                    stack.pop();
+                    return -1;
+                }
+                return 0;
+            }
+        }
+    }
+
+    private static class SetWorkload extends Workload {
+        private final Set<Integer> set;
+
+        SetWorkload(Set<Integer> set) {
+            this.set = set;
+        }
+
+        void read(Random rnd) {
+            set.contains(rnd.nextInt(KEYS_PER_THREAD * 4));
+        }
+
+        int write(int thread, Random rnd) {
+            Integer key = thread * KEYS_PER_THREAD + rnd.nextInt(KEYS_PER_THREAD);
+            if (rnd.nextBoolean()) {
+                return set.add(key) ? 1 : 0;
+            } else {
+                return set.remove(key) ? -1 : 0;
+            }
+        }
+
+        void increment(int counter) {
+        }
+
+        long counterTotal() {
+            return -1;
+        }
+
+        int size() {
+            return set.size();
+        }
+    }
+
+    public void testSynchronizedMap() throws Exception {
+        checkScaling("synchronizedMap", new WorkloadFactory() {
+            public Workload create() {
+                return new MapWorkload(Collections.synchronizedMap(new HashMap<Integer, Integer>()));
+            }
+        });
+    }
+
+    public void testHashtable() throws Exception {
+        checkScaling("Hashtable", new WorkloadFactory() {
+            public Workload create() {
+                return new MapWorkload(new Hashtable<Integer, Integer>());
+            }
+        });
+    }
+
+    public void testSynchronizedList() throws Exception {
+        checkScaling("synchronizedList", new WorkloadFactory() {
+            public Workload create() {
+                return new ListWorkload(Collections.synchronizedList(new ArrayList<Integer>()));
+            }
+        });
+    }
+
+    public void testVector() throws Exception {
+        checkScaling("Vector", new WorkloadFactory() {
+            public Workload create() {
+                return new ListWorkload(new Vector<Integer>());
+            }
+        });
+    }
+
+    public void testStack() throws Exception {
+        checkScaling("Stack", new WorkloadFactory() {
+            public Workload create() {
+                return new StackWorkload(new Stack<Integer>());
+            }
+        });
+    }
+
+    public void testSynchronizedSet() throws Exception {
+        checkScaling("synchronizedSet", new WorkloadFactory() {
+            public Workload create() {
+                return new SetWorkload(Collections.synchronizedSet(new HashSet<Integer>()));
+            }
+        });
+    }
+
+    /**
+     * Runs a fresh workload from {@code factory} at each thread count,
+     * checking its invariants, and prints the throughputs if benchmarks are
+     * enabled.
+     */
+    private void checkScaling(String impl, WorkloadFactory factory) throws Exception {
+        if (isEnabled()) {
+            run(impl, factory.create(), maxThreads);
+        }
+        double singleThreaded = 0;
+        for (int threads : threadCounts()) {
+            double opsPerSecond = run(impl, factory.create(), threads);
+            if (threads == 1) {
+                singleThreaded = opsPerSecond;
+            }
+            printResult(withParams("mixed", "impl", impl, "threads", threads),
+                    "%.1f ops/s scaling=%.2f", opsPerSecond, opsPerSecond / singleThreaded);
+        }
+    }
+
+    /**
+     * Returns 1, 2, 4 and so on, ending with the most threads.
+     */
+    private List<Integer> threadCounts() {
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * Runs {@code workload} on {@code threadCount} threads, checks its
+     * invariants, and returns its throughput in operations per second.
+     */
+    private double run(String impl, final Workload workload, int threadCount)
+            throws Exception {
+        final int initialSize = workload.size();
+        final long initialCounters = workload.counterTotal();
+        final long durationNanos = Long.getLong(MILLIS_KEY, 2000) * 1000000L;
+        final boolean timed = isEnabled();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int[] sizeChanges = new int[threadCount];
+        final long[] increments = new long[threadCount];
+        final long[] ops = new long[threadCount];
+        final Throwable[] failures = new Throwable[threadCount];
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads[t] = new Thread(impl + "-" + t) {
+                @Override public void run() {
+                    Random rnd = new Random(thread);
+                    int sizeChange = 0;
+                    long incremented = 0;
+                    long done = 0;
+                    try {
+                        start.await();
+                        long end = System.nanoTime() + durationNanos;
+                        while (timed ? (done & 255) != 0 || System.nanoTime() < end
+                                : done < opsPerThread) {
+                            int choice = rnd.nextInt(100);
+                            if (choice < READ_PERCENT) {
+                                workload.read(rnd);
+                            } else if (initialCounters >= 0 && (choice & 1) == 0) {
+                                workload.increment(rnd.nextInt(COUNTERS));
+                                incremented++;
+                            } else {
+                                sizeChange += workload.write(thread, rnd);
+                            }
+                            done++;
+                        }
+                    } catch (Throwable e) {
+                        failures[thread] = e;
+                    }
+                    sizeChanges[thread] = sizeChange;
+                    increments[thread] = incremented;
+                    ops[thread] = done;
+                }
+            };
+            threads[t].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        int expectedSize = initialSize;
+        long expectedCounters = initialCounters;
+        long totalOps = 0;
+        for (int t = 0; t < threadCount; t++) {
+            if (failures[t] != null) {
+                AssertionError error = new AssertionError(
+                        impl + " thread " + t + " of " + threadCount + " failed");
+                error.initCause(failures[t]);
+                throw error;
+            }
+            expectedSize += sizeChanges[t];
+            expectedCounters += increments[t];
+            totalOps += ops[t];
+        }
+        assertEquals(impl + " size after " + threadCount + " threads",
+                expectedSize, workload.size());
+        if (initialCounters >= 0) {
+            assertEquals(impl + " counters after " + threadCount + " threads",
+                    expectedCounters, workload.counterTotal());
+        }
+        return totalOps * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+
+/**
+ * Measures operations on chains of views of a TreeMap or TreeSet, like the
+ * nested subMap, headMap, tailMap and descendingMap views TreeMapExtendTest
+ * checks, at increasing depths. Each level of a chain narrows its parent by
+ * one key or reverses it, so the views at every depth hold about the same
+ * keys and only the depth differs.
+ *
+ * <p>Each test counts the comparisons per operation at every depth. The
+ * first {@link #CYCLE} levels hold one view of each kind, and the test fails
+ * if a deeper view needs more than {@link #COMPARISON_SLACK} times as many
+ * comparisons as the worst of those, plus a few. A view that checks its
+ * bounds and then delegates to its parent costs a comparison or two per
+ * level, which fails that bound by depth 64. Comparisons don't depend on the
+ * VM's speed, so the bound holds without benchmarks enabled. With {@code
+ * hy.test.benchmarks} set, each operation is also timed per depth, named like
+ * {@code get[impl=TreeMap,depth=8,n=10000]}.
+ *
+ * <p>The size of the backing map and the deepest chain are set with the
+ * {@code hy.test.viewchain.n} and {@code hy.test.viewchain.depth} system
+ * properties, 10000 and 64 by default.
+ */
+public class TreeMapViewChainTest extends BenchmarkCase {
+
+    static final String N_KEY = "hy.test.viewchain.n";
+    static final String DEPTH_KEY = "hy.test.viewchain.depth";
+
+    /** the number of levels after which chains repeat the kinds of view */
+    private static final int CYCLE = 4;
+
+    private static final double COMPARISON_SLACK = 1.5;
+    private static final int EXTRA_COMPARISONS = 4;
+
+    /** the number of keys lookups cycle through */
+    private static final int LOOKUP_KEYS = 1024;
+
+    /** the number of entries each iteration visits */
+    private static final int ITERATED = 64;
+
+    /** the number of operations comparisons are counted over */
+    private static final int COUNTED_OPS = 256;
+
+    private final int n = Integer.getInteger(N_KEY, 10000);
+    private final int maxDepth = Integer.getInteger(DEPTH_KEY, 64);
+
+    private final CountingComparator comparator = new CountingComparator();
+
+    private TreeMap<Integer, Integer> map;
+    private TreeSet<Integer> set;
+
+    /** keys inside the deepest view, and so inside every view */
+    private int[] lookupKeys;
+
+    /** the most comparisons per operation on the views of the first cycle */
+    private double baseline;
+
+    /**
+     * Compares integers in their natural order, counting the comparisons.
+     */
+    static class CountingComparator implements Comparator<Integer> {
+        int count;
+
+        public int compare(Integer a, Integer b) {
+            count++;
+            return a.compareTo(b);
+        }
+    }
+
+    /**
+     * The keys a chain of views holds, from {@code lo} to {@code hi}
+     * inclusive, and the order it holds them in.
+     */
+    static class Range {
+        int lo;
+        int hi;
+        boolean descending;
+
+        int first() {
+            return descending ? hi : lo;
+        }
+
+        int last() {
+            return descending ? lo : hi;
+        }
+    }
+
+    /**
+     * An operation on a view whose comparisons are counted and whose time is
+     * measured at each depth.
+     */
+    private abstract class ViewOperation {
+        abstract void run(int i);
+
+        void check(int depth) {
+        }
+    }
+
+    @Override protected void setUp() throws Exception {
+        super.setUp();
+        assertTrue(N_KEY + " is too small for a chain of depth " + maxDepth, n > 4 * maxDepth);
+        map = new TreeMap<Integer, Integer>(comparator);
+        set = new TreeSet<Integer>(comparator);
+        for (int i = 0; i < n; i++) {
+            map.put(i, i);
+            set.add(i);
+        }
+
+        // each level narrows the range by at most one key at each end
+        Random rnd = new Random(-1);
+        int lo = maxDepth;
+        int hi = n - 1 - maxDepth;
+        lookupKeys = new int[LOOKUP_KEYS];
+        for (int i = 0; i < lookupKeys.length; i++) {
+            lookupKeys[i] = lo + rnd.nextInt(hi - lo + 1);
+        }
+    }
+
+    @Override protected void tearDown() throws Exception {
+        map = null;
+        set = null;
+        super.tearDown();
+    }
+
+    public void testMapGet() throws Exception {
+        for (int depth : depths()) {
+            Range range = new Range();
+            final NavigableMap<Integer, Integer> view = mapView(depth, range);
+            checkMapView(view, depth, range);
+            checkAndMeasure("get", "TreeMap", depth, new ViewOperation() {
+                void run(int i) {
+                    int key = lookupKeys[i & (LOOKUP_KEYS - 1)];
+                    blackhole.consume(view.get(key));
+                }
+            });
+        }
+    }
+
+    public void testMapIterate() throws Exception {
+        for (int depth : depths()) {
+            final NavigableMap<Integer, Integer> view = mapView(depth, new Range());
+            checkAndMeasure("iterate", "TreeMap", depth, new ViewOperation() {
+                void run(int i) {
+                    Iterator<Map.Entry<Integer, Integer>> it = view.entrySet().iterator();
+                    for (int j = 0; j < ITERATED && it.hasNext(); j++) {
+                        blackhole.consume(it.next().getValue());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times polling the first entry of a view and putting it back, so that
+     * the view keeps its contents. The time includes both.
+     */
+    public void testMapPollFirst() throws Exception {
+        for (int depth : depths()) {
+            final NavigableMap<Integer, Integer> view = mapView(depth, new Range());
+            final Integer first = view.firstKey();
+            checkAndMeasure("pollFirst", "TreeMap", depth, new ViewOperation() {
+                void run(int i) {
+                    Map.Entry<Integer, Integer> entry = view.pollFirstEntry();
+                    view.put(entry.getKey(), entry.getValue());
+                    blackhole.consume(entry.getKey());
+                }
+
+                @Override void check(int depth) {
+                    assertEquals("first key at depth " + depth, first, view.firstKey());
+                }
+            });
+        }
+    }
+
+    public void testMapSize() throws Exception {
+        for (int depth : depths()) {
+            final NavigableMap<Integer, Integer> view = mapView(depth, new Range());
+            final int size = view.size();
+            checkAndMeasure("size", "TreeMap", depth, new ViewOperation() {
+                void run(int i) {
+                    blackhole.consume(view.size());
+                }
+
+                @Override void check(int depth) {
+                    assertEquals("size at depth " + depth, size, view.size());
+                }
+            });
+        }
+    }
+
+    public void testSetContains() throws Exception {
+        for (int depth : depths()) {
+            Range range = new Range();
+            final NavigableSet<Integer> view = setView(depth, range);
+            checkSetView(view, depth, range);
+            checkAndMeasure("contains", "TreeSet", depth, new ViewOperation() {
+                void run(int i) {
+                    blackhole.consume(view.contains(lookupKeys[i & (LOOKUP_KEYS - 1)]));
+                }
+            });
+        }
+    }
+
+    public void testSetIterate() throws Exception {
+        for (int depth : depths()) {
+            final NavigableSet<Integer> view = setView(depth, new Range());
+            checkAndMeasure("iterate", "TreeSet", depth, new ViewOperation() {
+                void run(int i) {
+                    Iterator<Integer> it = view.iterator();
+                    for (int j = 0; j < ITERATED && it.hasNext(); j++) {
+                        blackhole.consume(it.next());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Times polling the first element of a view and adding it back, so that
+     * the view keeps its contents. The time includes both.
+     */
+    public void testSetPollFirst() throws Exception {
+        for (int depth : depths()) {
+            final NavigableSet<Integer> view = setView(depth, new Range());
+            final Integer first = view.first();
+            checkAndMeasure("pollFirst", "TreeSet", depth, new ViewOperation() {
+                void run(int i) {
+                    Integer element = view.pollFirst();
+                    view.add(element);
+                    blackhole.consume(element);
+                }
+
+                @Override void check(int depth) {
+                    assertEquals("first element at depth " + depth, first, view.first());
+                }
+            });
+        }
+    }
+
+    public void testSetSize() throws Exception {
+        for (int depth : depths()) {
+            final NavigableSet<Integer> view = setView(depth, new Range());
+            final int size = view.size();
+            checkAndMeasure("size", "TreeSet", depth, new ViewOperation() {
+                void run(int i) {
+                    blackhole.consume(view.size());
+                }
+
+                @Override void check(int depth) {
+                    assertEquals("size at depth " + depth, size, view.size());
+                }
+            });
+        }
+    }
+
+    /**
+     * Counts the comparisons {@code operation} takes at {@code depth},
+     * asserts that they're within the bound, and measures it.
+     */
+    private void checkAndMeasure(String name, String impl, int depth,
+            final ViewOperation operation) throws Exception {
+        comparator.count = 0;
+        for (int i = 0; i < COUNTED_OPS; i++) {
+            operation.run(i);
+        }
+        double perOp = (double) comparator.count / COUNTED_OPS;
+        operation.check(depth);
+        if (depth > 0 && depth <= CYCLE) {
+            baseline = Math.max(baseline, perOp);
+        } else if (depth > CYCLE) {
+            double bound = COMPARISON_SLACK * baseline + EXTRA_COMPARISONS;
+            assertTrue(String.format("%s on a %s view of depth %d takes %.1f comparisons,"
+                    + " more than %.1f; at depths up to %d it takes %.1f at most",
+                    name, impl, depth, perOp, bound, CYCLE, baseline), perOp <= bound);
+        }
+
+        measure(withParams(name, "impl", impl, "depth", depth, "n", n), new Operation() {
+            public void run(int reps) {
+                for (int i = 0; i < reps; i++) {
+                    operation.run(i);
+                }
+            }
+        });
+        operation.check(depth);
+    }
+
+    /**
+     * Returns 0, 1, 2, 4 and so on up to the deepest chain.
+     */
+    private int[] depths() {
+        int count = 2;
+        for (int depth = 2; depth <= maxDepth; depth *= 2) {
+            count++;
+        }
+        int[] depths = new int[count];
+        for (int i = 1; i < count; i++) {
+            depths[i] = 1 << (i - 1);
+        }
+        return depths;
+    }
+
+    /**
+     * Returns a chain of {@code depth} views of the map, and puts the keys it
+     * holds in {@code range}. Levels cycle through subMap, headMap,
+     * descendingMap and tailMap.
+     */
+    private NavigableMap<Integer, Integer> mapView(int depth, Range range) {
+        NavigableMap<Integer, Integer> view = map;
+        range.lo = 0;
+        range.hi = n - 1;
+        range.descending = false;
+        for (int level = 0; level < depth; level++) {
+            switch (level % 4) {
+            case 0:
+                view = range.descending
+                        ? view.subMap(range.hi - 1, true, range.lo + 1, true)
+                        : view.subMap(range.lo + 1, true, range.hi - 1, true);
+                range.lo++;
+                range.hi--;
+                break;
+            case 1:
+                view = range.descending ? view.headMap(++range.lo, true)
+                        : view.headMap(--range.hi, true);
+                break;
+            case 2:
+                view = view.descendingMap();
+                range.descending = !range.descending;
+                break;
+            default:
+                view = range.descending ? view.tailMap(--range.hi, true)
+                        : view.tailMap(++range.lo, true);
+                break;
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Returns a chain of {@code depth} views of the set, and puts the keys it
+     * holds in {@code range}. Levels cycle through subSet, headSet,
+     * descendingSet and tailSet.
+     */
+    private NavigableSet<Integer> setView(int depth, Range range) {
+        NavigableSet<Integer> view = set;
+        range.lo = 0;
+        range.hi = n - 1;
+        range.descending = false;
+        for (int level = 0; level < depth; level++) {
+            switch (level % 4) {
+            case 0:
+                view = range.descending
+                        ? view.subSet(range.hi - 1, true, range.lo + 1, true)
+                        : view.subSet(range.lo + 1, true, range.hi - 1, true);
+                range.lo++;
+                range.hi--;
+                break;
+            case 1:
+                view = range.descending ? view.headSet(++range.lo, true)
+                        : view.headSet(--range.hi, true);
+                break;
+            case 2:
+                view = view.descendingSet();
+                range.descending = !range.descending;
+                break;
+            default:
+                view = range.descending ? view.tailSet(--range.hi, true)
+                        : view.tailSet(++range.lo, true);
+                break;
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Checks that a chain holds the keys in {@code range}, in the right order.
+     */
+    private void checkMapView(NavigableMap<Integer, Integer> view, int depth, Range range) {
+        assertEquals("size at depth " + depth, range.hi - range.lo + 1, view.size());
+        assertEquals("first key at depth " + depth, range.first(), (int) view.firstKey());
+        assertEquals("last key at depth " + depth, range.last(), (int) view.lastKey());
+        assertNull(view.get(range.lo - 1));
+        assertNull(view.get(range.hi + 1));
+    }
+
+    private void checkSetView(NavigableSet<Integer> view, int depth, Range range) {
+        assertEquals("size at depth " + depth, range.hi - range.lo + 1, view.size());
+        assertEquals("first element at depth " + depth, range.first(), (int) view.first());
+        assertEquals("last element at depth " + depth, range.last(), (int) view.last());
+        assertFalse(view.contains(range.lo - 1));
+        assertFalse(view.contains(range.hi + 1));
+    }
+}
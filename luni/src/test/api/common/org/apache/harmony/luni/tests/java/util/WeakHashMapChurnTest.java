@@ -0,0 +1,265 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.java.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.GcStats;
+import org.apache.harmony.testframework.perf.LatencyHistogram;
+
+/**
+ * Churns the keys of a WeakHashMap the way a canonicalization cache does:
+ * the map is filled with {@code hy.test.weakhashmap.n} keys, 100000 by
+ * default, then a share of them die at once, the garbage collector clears
+ * them, and the map expunges their stale entries on its next operation.
+ * Dead keys are replaced and the cycle repeats {@code
+ * hy.test.weakhashmap.cycles} times, 3 by default, at each death rate of
+ * {@code hy.test.weakhashmap.deathrates}, a comma-separated list of
+ * percentages, "1,10,50,100" by default.
+ *
+ * <p>Every put and get is timed on its own, before the keys die, while the
+ * map drains its reference queue and expunges the dead keys, and after.
+ * While draining, each round replaces a dead key with a put and looks up an
+ * absent key with a get, until {@code size()} shows that every dead key is
+ * gone; the reference handler may still be enqueuing the map's references
+ * when the first round starts. The map must keep the values of every live
+ * key and drop every dead one. With {@code hy.test.benchmarks} set, the
+ * latencies are printed, named like {@code
+ * put[phase=draining,rate=50,n=100000]}, and the drain of at least one cycle
+ * may take at most {@link #MAX_NANOS_PER_EXPUNGED} per dead key, so that
+ * expunging stays linear in the entries it removes. Expunging runs once per
+ * cycle, so a single drain may also pay for compiling it; one that isn't
+ * linear is slow in every cycle.
+ */
+public class WeakHashMapChurnTest extends BenchmarkCase {
+
+    static final String N_KEY = "hy.test.weakhashmap.n";
+    static final String CYCLES_KEY = "hy.test.weakhashmap.cycles";
+    static final String DEATH_RATES_KEY = "hy.test.weakhashmap.deathrates";
+
+    /** unlinking an entry takes a few cache misses; this allows for many */
+    private static final long MAX_NANOS_PER_EXPUNGED = 1000;
+
+    /** allowed on top of the time per dead key, for the timer and the puts and gets themselves */
+    private static final long DRAIN_OVERHEAD_NANOS = 100000;
+
+    /** how long the map may take to drop the dead keys once ours are enqueued */
+    private static final long DRAIN_TIMEOUT_NANOS = 2000L * 1000 * 1000;
+
+    /** the collections to wait for before deciding references aren't cleared */
+    private static final int GC_TRIES = 10;
+
+    private final int n = Integer.getInteger(N_KEY, 100000);
+    private final int cycles = Integer.getInteger(CYCLES_KEY, 3);
+
+    /**
+     * A key that is only equal to itself, so it can't be found once dropped.
+     */
+    static final class Key {
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override public String toString() {
+            return "Key" + id;
+        }
+    }
+
+    public void testChurn() throws Exception {
+        for (String rate : System.getProperty(DEATH_RATES_KEY, "1,10,50,100").split(",")) {
+            checkChurn(Integer.parseInt(rate.trim()));
+        }
+    }
+
+    /**
+     * Runs the fill, kill and expunge cycles with {@code rate} percent of
+     * the keys dying in each.
+     */
+    private void checkChurn(int rate) throws Exception {
+        if (isEnabled()) {
+            // the first run is slower while the code is compiled
+            runChurn(rate);
+        }
+        runChurn(rate);
+    }
+
+    private void runChurn(int rate) throws Exception {
+        Random rnd = new Random(rate);
+        LatencyHistogram put = latencies(name("put", "fill", rate));
+        LatencyHistogram getBefore = latencies(name("get", "beforeGc", rate));
+        LatencyHistogram putDraining = latencies(name("put", "draining", rate));
+        LatencyHistogram getDraining = latencies(name("get", "draining", rate));
+        LatencyHistogram getAfter = latencies(name("get", "afterGc", rate));
+        WeakHashMap<Key, Integer> map = new WeakHashMap<Key, Integer>();
+        Key[] keys = new Key[n];
+        int nextId = 0;
+        Key absent = new Key(-1);
+        String slowDrain = null;
+        boolean linearDrain = false;
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            for (int i = 0; i < n; i++) {
+                if (keys[i] == null) {
+                    keys[i] = new Key(nextId++);
+                    long start = System.nanoTime();
+                    map.put(keys[i], i);
+                    put.record(System.nanoTime() - start);
+                }
+            }
+            assertEquals("keys after refilling", n, map.size());
+            checkGets(map, keys, rnd, getBefore);
+
+            // the map's references to the dead keys are cleared by the same collections as
+            // these, though the reference handler may enqueue them a little later
+            ReferenceQueue<Key> queue = new ReferenceQueue<Key>();
+            List<WeakReference<Key>> deadKeys = new ArrayList<WeakReference<Key>>();
+            List<Integer> deadIndexes = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                if (rnd.nextInt(100) < rate) {
+                    deadKeys.add(new WeakReference<Key>(keys[i], queue));
+                    deadIndexes.add(i);
+                    keys[i] = null;
+                }
+            }
+            int dead = deadKeys.size();
+            awaitClearing(deadKeys, queue);
+
+            // the size() calls expunge too, so they're part of the drain
+            long gcCount = GcStats.count();
+            long drainNanos = 0;
+            long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+            int replaced = 0;
+            while (true) {
+                Key replacement = replaced < dead ? new Key(nextId++) : null;
+                long start = System.nanoTime();
+                if (replacement != null) {
+                    int index = deadIndexes.get(replaced++);
+                    keys[index] = replacement;
+                    map.put(replacement, index);
+                    putDraining.record(System.nanoTime() - start);
+                }
+                long getStart = System.nanoTime();
+                Integer value = map.get(absent);
+                getDraining.record(System.nanoTime() - getStart);
+                int size = map.size();
+                drainNanos += System.nanoTime() - start;
+                assertNull(value);
+                if (size == n - dead + replaced) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    fail(String.format(Locale.US, "%d of %d dead keys still in the map",
+                            size - (n - dead + replaced), dead));
+                }
+                Thread.sleep(1);
+            }
+            // without dead keys there's nothing to bound, and a collection would be timed too
+            if (dead > 0 && GcStats.count() == gcCount) {
+                if (drainNanos <= DRAIN_OVERHEAD_NANOS + MAX_NANOS_PER_EXPUNGED * dead) {
+                    linearDrain = true;
+                } else {
+                    slowDrain = String.format(Locale.US, "draining %d of %d keys took %d ns,"
+                            + " more than %d ns per dead key", dead, n, drainNanos,
+                            MAX_NANOS_PER_EXPUNGED);
+                }
+            }
+
+            checkGets(map, keys, rnd, getAfter);
+            checkSize(map, n - dead + replaced);
+        }
+
+        if (isEnabled() && slowDrain != null && !linearDrain) {
+            fail(slowDrain + " in every cycle");
+        }
+
+        if (isEnabled()) {
+            for (LatencyHistogram histogram : new LatencyHistogram[] {
+                    put, getBefore, putDraining, getDraining, getAfter }) {
+                // with every key dead there are none to get
+                if (histogram.getCount() > 0) {
+                    System.out.println(histogram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the values of {@code n} random keys, or of as many live ones as
+     * there are, and checks them.
+     */
+    private void checkGets(WeakHashMap<Key, Integer> map, Key[] keys, Random rnd,
+            LatencyHistogram latencies) {
+        for (int i = 0; i < n; i++) {
+            int index = rnd.nextInt(n);
+            if (keys[index] != null) {
+                long start = System.nanoTime();
+                Integer value = map.get(keys[index]);
+                latencies.record(System.nanoTime() - start);
+                assertEquals("value of " + keys[index], Integer.valueOf(index), value);
+            }
+        }
+    }
+
+    /**
+     * Collects garbage until all of {@code references} are cleared and
+     * enqueued on {@code queue}. They're kept reachable meanwhile, as
+     * references that aren't are never enqueued.
+     */
+    private static void awaitClearing(List<WeakReference<Key>> references,
+            ReferenceQueue<Key> queue) throws InterruptedException {
+        int cleared = 0;
+        for (int i = 0; i < GC_TRIES && cleared < references.size(); i++) {
+            System.gc();
+            for (Object reference = queue.remove(200); reference != null;
+                    reference = queue.poll()) {
+                cleared++;
+            }
+        }
+        if (cleared < references.size()) {
+            fail(cleared + " of " + references.size() + " dead keys cleared after " + GC_TRIES
+                    + " collections");
+        }
+    }
+
+    /**
+     * Checks that {@code map} holds {@code live} keys once the references
+     * of the dead ones have all been enqueued, which may take the reference
+     * handler a little after ours are.
+     */
+    private static void checkSize(WeakHashMap<Key, Integer> map, int live)
+            throws InterruptedException {
+        for (int i = 0; i < GC_TRIES && map.size() != live; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        assertEquals("keys left after dead ones were expunged", live, map.size());
+    }
+
+    private String name(String operation, String phase, int rate) {
+        return withParams(operation, "phase", phase, "rate", rate, "n", n);
+    }
+}
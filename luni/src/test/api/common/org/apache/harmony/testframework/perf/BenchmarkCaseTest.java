@@ -0,0 +1,49 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class BenchmarkCaseTest extends TestCase {
+
+    public void testWarmUpWindow() {
+        List<Double> samples = new ArrayList<Double>();
+        for (int i = 0; i < 9; i++) {
+            samples.add(100.0);
+            assertFalse("warm after " + samples.size(), BenchmarkCase.isWarm(samples));
+        }
+        samples.add(104.0);
+        assertTrue(BenchmarkCase.isWarm(samples));
+
+        // the medians of 200,200,200,100,100 and 100,100,100,100,100 differ by 100%
+        samples = new ArrayList<Double>(Arrays.asList(
+                200.0, 200.0, 200.0, 100.0, 100.0, 100.0, 100.0, 100.0, 100.0, 100.0));
+        assertFalse(BenchmarkCase.isWarm(samples));
+        samples.addAll(Arrays.asList(100.0, 100.0, 100.0));
+        assertTrue(BenchmarkCase.isWarm(samples));
+
+        // a single outlier in each window doesn't move its median
+        samples = new ArrayList<Double>(Arrays.asList(
+                100.0, 100.0, 900.0, 100.0, 100.0, 100.0, 100.0, 100.0, 5.0, 100.0));
+        assertTrue(BenchmarkCase.isWarm(samples));
+    }
+}
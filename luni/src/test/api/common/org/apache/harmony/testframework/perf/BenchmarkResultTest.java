@@ -0,0 +1,70 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import junit.framework.TestCase;
+
+public class BenchmarkResultTest extends TestCase {
+
+    /**
+     * Returns a result whose samples are 1, 2, ... {@code n}, shuffled.
+     */
+    private static BenchmarkResult result(int n) {
+        double[] samples = new double[n];
+        for (int i = 0; i < n; i++) {
+            samples[i] = (i * 7 % n) + 1;
+        }
+        return new BenchmarkResult("Foo#bar", 1, samples, -1);
+    }
+
+    public void testMedianConfidenceInterval() {
+        // with 20 samples the interval runs from the 6th smallest to the 6th largest
+        BenchmarkResult result = result(20);
+        assertEquals(10.0, result.getMedian());
+        assertEquals(5.0, result.getMedianConfidenceInterval());
+
+        // with 9, from the 2nd smallest to the 2nd largest
+        result = result(9);
+        assertEquals(5.0, result.getMedian());
+        assertEquals(3.0, result.getMedianConfidenceInterval());
+    }
+
+    public void testMedianConfidenceIntervalNeedsSixSamples() {
+        assertEquals(Double.POSITIVE_INFINITY, result(5).getMedianConfidenceInterval());
+        // from the smallest to the largest, around the lower middle sample
+        assertEquals(3.0, result(6).getMedianConfidenceInterval());
+    }
+
+    public void testMedianConfidenceIntervalIgnoresOutliers() {
+        double[] samples = new double[20];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 100 + i % 2;
+        }
+        samples[0] = 1000000;
+        samples[1] = 1;
+        BenchmarkResult result = new BenchmarkResult("Foo#bar", 1, samples, -1);
+        assertEquals(1.0, result.getMedianConfidenceInterval());
+        assertTrue(result.getConfidenceInterval() > 1000);
+    }
+
+    public void testToStringReportsTheMedianError() {
+        String line = result(20).toString();
+        assertTrue(line, line.startsWith("benchmark Foo#bar 10.0 ns/op "));
+        assertTrue(line, line.contains(" ci95=5.0 "));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TimingDatabaseTest extends TestCase {
+
+    private File file;
+
+    @Override protected void setUp() throws Exception {
+        file = File.createTempFile("TimingDatabaseTest", null);
+    }
+
+    @Override protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    /**
+     * Writes {@code lines} to the database file, replacing its contents.
+     */
+    static void write(File file, String... lines) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.toString().getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    public void testReadWithAndWithoutGcFields() throws Exception {
+        write(file,
+                "r1\t1000\tp.ATest#testA\t5000000\t4000000\t2048\t3\t700000",
+                "r1\t1001\tp.ATest#testB\t6000000\t-1\t-1");
+        List<TimingDatabase.Sample> samples = new TimingDatabase(file).read();
+        assertEquals(2, samples.size());
+
+        TimingDatabase.Sample a = samples.get(0);
+        assertEquals("r1", a.run);
+        assertEquals(1000, a.timestamp);
+        assertEquals("p.ATest#testA", a.test);
+        assertEquals(5000000, a.wallNanos);
+        assertEquals(4000000, a.cpuNanos);
+        assertEquals(2048, a.allocatedBytes);
+        assertEquals(3, a.gcCount);
+        assertEquals(700000, a.gcNanos);
+
+        TimingDatabase.Sample b = samples.get(1);
+        assertEquals("p.ATest#testB", b.test);
+        assertEquals(6000000, b.wallNanos);
+        assertEquals(-1, b.cpuNanos);
+        assertEquals(-1, b.allocatedBytes);
+        assertEquals(-1, b.gcCount);
+        assertEquals(-1, b.gcNanos);
+    }
+
+    public void testReadSkipsMalformedLines() throws Exception {
+        write(file,
+                "r1\t1000\tp.ATest#testA\t5000000\t4000000\t2048\t3\t700000",
+                "r1\t1001\tp.ATest#testB\t6000",
+                "r1\t1002\tp.ATest#testC\tfast\t-1\t-1",
+                "",
+                "r2\t1003\tp.ATest#testA\t5100000\t4000000\t2048\t3\t700000");
+        List<TimingDatabase.Sample> samples = new TimingDatabase(file).read();
+        assertEquals(2, samples.size());
+        assertEquals("r1", samples.get(0).run);
+        assertEquals("r2", samples.get(1).run);
+    }
+
+    public void testReadMissingFile() throws Exception {
+        file.delete();
+        assertTrue(new TimingDatabase(file).read().isEmpty());
+    }
+
+    public void testAppendAndRead() throws Exception {
+        file.delete();
+        TimingDatabase database = new TimingDatabase(file);
+        database.append(new TimingDatabase.Sample("r1", 1000, "p.ATest#testA", 1, 2, 3, 4, 5));
+        database.append(new TimingDatabase.Sample("r1", 1001, "p.ATest#testB", 6, 7, 8));
+
+        List<TimingDatabase.Sample> samples = database.read();
+        assertEquals(2, samples.size());
+        assertEquals("r1\t1000\tp.ATest#testA\t1\t2\t3\t4\t5", samples.get(0).toString());
+        assertEquals("r1\t1001\tp.ATest#testB\t6\t7\t8\t-1\t-1", samples.get(1).toString());
+    }
+}
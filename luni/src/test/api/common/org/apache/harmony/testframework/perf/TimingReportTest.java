@@ -0,0 +1,174 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TimingReportTest extends TestCase {
+
+    private static final String TEST = "p.ATest#testA";
+
+    private File file;
+    private String output;
+
+    @Override protected void setUp() throws Exception {
+        file = File.createTempFile("TimingReportTest", null);
+    }
+
+    @Override protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    /**
+     * Returns a line of the database with {@code millis} of wall time and
+     * {@code bytes} allocated.
+     */
+    private static String line(String run, long millis, long bytes) {
+        return line(run, TEST, millis, bytes);
+    }
+
+    private static String line(String run, String test, long millis, long bytes) {
+        return run + "\t0\t" + test + "\t" + millis * 1000000 + "\t-1\t" + bytes + "\t-1\t-1";
+    }
+
+    /**
+     * Returns lines with one sample of {@code millis} in each of {@code runs}
+     * runs, named from {@code first}.
+     */
+    private static List<String> runs(int first, int runs, long millis) {
+        List<String> lines = new ArrayList<String>();
+        for (int i = first; i < first + runs; i++) {
+            lines.add(line("r" + i, millis, -1));
+        }
+        return lines;
+    }
+
+    /**
+     * Reports the regressions in a database of {@code lines}, keeping the
+     * printed report in {@link #output}.
+     */
+    private int report(TimingReport report, List<String> lines) throws Exception {
+        TimingDatabaseTest.write(file, lines.toArray(new String[lines.size()]));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int regressions = report.report(new TimingDatabase(file).read(),
+                new PrintStream(bytes, true));
+        output = bytes.toString();
+        return regressions;
+    }
+
+    public void testSteadyTimesAreNotFlagged() throws Exception {
+        List<String> lines = runs(0, 5, 100);
+        lines.add(line("r5", 120, -1));
+        assertEquals(0, report(new TimingReport(), lines));
+        assertEquals("", output);
+    }
+
+    public void testSlowdownIsFlagged() throws Exception {
+        List<String> lines = runs(0, 5, 100);
+        lines.add(line("r5", 200, -1));
+        assertEquals(1, report(new TimingReport(), lines));
+        assertTrue(output, output.contains(TEST));
+        assertTrue(output, output.contains("+100%"));
+    }
+
+    public void testSingleRunIsNotCompared() throws Exception {
+        assertEquals(0, report(new TimingReport(), runs(0, 1, 100)));
+    }
+
+    public void testOnlyTestsInTheLatestRunAreCompared() throws Exception {
+        // the last run of TEST regressed, but TEST wasn't in the latest run
+        List<String> lines = runs(0, 5, 100);
+        lines.add(line("r5", 200, -1));
+        lines.add(line("r6", "p.BTest#testB", 100, -1));
+        assertEquals(0, report(new TimingReport(), lines));
+        assertEquals("", output);
+    }
+
+    public void testLatestRunUsesItsMedian() throws Exception {
+        List<String> lines = runs(0, 5, 100);
+        // one slow sample of three doesn't move the median
+        lines.addAll(Arrays.asList(line("r5", 100, -1), line("r5", 900, -1), line("r5", 110, -1)));
+        assertEquals(0, report(new TimingReport(), lines));
+
+        // with an even count, the median is the mean of the middle two
+        lines = runs(0, 5, 100);
+        lines.addAll(Arrays.asList(line("r5", 100, -1), line("r5", 300, -1)));
+        assertEquals(1, report(new TimingReport(), lines));
+        assertTrue(output, output.contains("200.0"));
+    }
+
+    public void testBaselineIsMedianOfRunMedians() throws Exception {
+        // one slow previous run doesn't raise the baseline
+        List<String> lines = runs(0, 4, 100);
+        lines.add(line("r4", 1000, -1));
+        lines.add(line("r5", 200, -1));
+        assertEquals(1, report(new TimingReport(), lines));
+        assertTrue(output, output.contains("100.0"));
+    }
+
+    public void testBaselineWindowIsLimitedToRecentRuns() throws Exception {
+        List<String> lines = runs(0, 20, 10);
+        lines.addAll(runs(20, 5, 100));
+        lines.add(line("r25", 120, -1));
+        // the last 5 runs took 100 ms, so 120 ms is within the threshold
+        assertEquals(0, report(new TimingReport().setRuns(5), lines));
+        // over 25 runs the baseline is 10 ms
+        assertEquals(1, report(new TimingReport().setRuns(25), lines));
+    }
+
+    public void testThresholdAndMinimum() throws Exception {
+        List<String> lines = runs(0, 5, 100);
+        lines.add(line("r5", 140, -1));
+        assertEquals(0, report(new TimingReport(), lines));
+        assertEquals(1, report(new TimingReport().setThresholdPercent(30), lines));
+
+        // tripled, but by less than the 10 ms minimum
+        lines = runs(0, 5, 2);
+        lines.add(line("r5", 6, -1));
+        assertEquals(0, report(new TimingReport(), lines));
+        assertEquals(1, report(new TimingReport().setMinMillis(1), lines));
+    }
+
+    public void testAllocationGrowthIsFlagged() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(line("r" + i, 100, 1024 * 1024));
+        }
+        lines.add(line("r5", 100, 4 * 1024 * 1024));
+        assertEquals(1, report(new TimingReport(), lines));
+        assertTrue(output, output.contains("KB"));
+    }
+
+    public void testUnknownAllocationsAreIgnored() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(line("r" + i, 100, 1024 * 1024));
+        }
+        // a vogar report sample in the same run as a measured one
+        lines.add(line("r5", 100, -1));
+        lines.add(line("r5", 100, 1024 * 1024));
+        assertEquals(0, report(new TimingReport(), lines));
+    }
+}
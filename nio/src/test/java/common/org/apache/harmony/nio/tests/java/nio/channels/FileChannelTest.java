@@ -44,9 +44,9 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 
-import junit.framework.TestCase;
+import org.apache.harmony.testframework.perf.InstrumentedTestCase;
 
-public class FileChannelTest extends TestCase {
+public class FileChannelTest extends InstrumentedTestCase {
 
     private static final int CAPACITY = 100;
 
@@ -49,13 +49,14 @@ import org.apache.harmony.security.x509.*;
 import java.security.cert.CertificateParsingException;
 
 import junit.framework.Test;
-import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+
 /**
  * X509CertFactoryPerfTest
  */
-public class X509CertFactoryPerfTest extends TestCase {
+public class X509CertFactoryPerfTest extends BenchmarkCase {
 
     //
     // The values of certificate's fields:
@@ -355,7 +356,11 @@ public class X509CertFactoryPerfTest extends TestCase {
 
     private static int XXX = 0, flag = 0;
 
-    public void testCreationCRL() throws Exception {
+    /**
+     * Stamps the certificate encoding with a new serial, generates a
+     * certificate from it and checks that the stamp survived.
+     */
+    private java.security.cert.Certificate createStamped() throws Exception {
         byte[] stamp = new byte[10];
         if ((++flag)%2 != 0) {
             XXX++;
@@ -377,35 +382,38 @@ public class X509CertFactoryPerfTest extends TestCase {
         if (!Arrays.equals(stamp, stamp_chek)) {
             fail("Wrong encoding received.");
         }
+        return c;
     }
 
-    public void testCreation1() throws Exception {
-        byte[] stamp = new byte[10];
-        if ((++flag)%2 != 0) {
-            XXX++;
-        }
-        byte tmp[] = BigInteger.valueOf(XXX).toByteArray();
-        System.arraycopy(tmp, 0, stamp, 0, tmp.length);
-        System.arraycopy(stamp, 0, certEncoding,
-                certEncoding.length-stamp.length, stamp.length);
-
-        stream.reset();
-        java.security.cert.Certificate c = factory.generateCertificate(stream);
-
-        byte[] enc = c.getEncoded();
-        byte[] stamp_chek = new byte[stamp.length];
-
-        System.arraycopy(enc, enc.length - stamp.length,
-                stamp_chek, 0, stamp.length);
+    public void testCreationCRL() throws Exception {
+        measure("creationCRL", new Operation() {
+            public void run(int reps) throws Exception {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(createStamped());
+                }
+            }
+        });
+    }
 
-        if (!Arrays.equals(stamp, stamp_chek)) {
-            fail("Wrong encoding received.");
-        }
+    public void testCreation1() throws Exception {
+        measure("creation1", new Operation() {
+            public void run(int reps) throws Exception {
+                for (int i = 0; i < reps; i++) {
+                    blackhole.consume(createStamped());
+                }
+            }
+        });
     }
 
     public void testCreation2() throws Exception {
-        stream_b64.reset();
-        factory.generateCertificate(stream_b64);
+        measure("creation2", new Operation() {
+            public void run(int reps) throws Exception {
+                for (int i = 0; i < reps; i++) {
+                    stream_b64.reset();
+                    blackhole.consume(factory.generateCertificate(stream_b64));
+                }
+            }
+        });
     }
 
     /**
@@ -57,7 +57,19 @@ public abstract class CharSinkTester {
         return this;
     }
 
+    /**
+     * Returns the conformance tests for this writer, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
     public final TestSuite createTests() {
+        TestSuite result = createConformanceTests();
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+        return result;
+    }
+
+    TestSuite createConformanceTests() {
         TestSuite result = new TestSuite();
         result.addTest(new SinkTestCase("sinkTestNoWriting"));
         result.addTest(new SinkTestCase("sinkTestWriteZeroChars"));
@@ -75,6 +87,18 @@ public abstract class CharSinkTester {
         return result;
     }
 
+    /**
+     * Returns benchmarks of writing to this writer char by char, in small
+     * arrays and in large arrays.
+     */
+    public final TestSuite createBenchmarks() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteCharByChar"));
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteSmallArrays"));
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteLargeArrays"));
+        return result;
+    }
+
     @Override public String toString() {
         return getClass().getName();
     }
@@ -204,4 +228,65 @@ public abstract class CharSinkTester {
             return CharSinkTester.this.toString() + ":" + super.getName();
         }
     }
+
+    public class SinkBenchmarkCase extends TestCase {
+
+        private SinkBenchmarkCase(String name) {
+            super(name);
+        }
+
+        public void sinkBenchmarkWriteCharByChar() throws Exception {
+            StreamBenchmark.measure(getName(), StreamBenchmark.SINGLE_PASS_SIZE, new SinkPass() {
+                @Override long write(Writer out) throws IOException {
+                    for (int i = 0; i < StreamBenchmark.SINGLE_PASS_SIZE; i++) {
+                        out.write('a' + i % 26);
+                    }
+                    return StreamBenchmark.SINGLE_PASS_SIZE;
+                }
+            });
+        }
+
+        public void sinkBenchmarkWriteSmallArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.SMALL_ARRAY);
+        }
+
+        public void sinkBenchmarkWriteLargeArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.LARGE_ARRAY);
+        }
+
+        private void benchmarkArrays(final int arraySize) throws Exception {
+            final char[] chars = new char[arraySize];
+            StreamBenchmark.measure(getName(), StreamBenchmark.ARRAY_PASS_SIZE, new SinkPass() {
+                @Override long write(Writer out) throws IOException {
+                    int writes = StreamBenchmark.ARRAY_PASS_SIZE / arraySize;
+                    for (int i = 0; i < writes; i++) {
+                        out.write(chars);
+                    }
+                    return writes;
+                }
+            });
+        }
+
+        @Override public String getName() {
+            return CharSinkTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    /**
+     * Writes to a new writer, and then releases it with {@link #getChars}.
+     */
+    private abstract class SinkPass extends StreamBenchmark.Pass {
+        @Override long run() throws Exception {
+            Writer out = create();
+            long writes = write(out);
+            out.close();
+            return writes;
+        }
+
+        @Override void finish() throws Exception {
+            getChars();
+        }
+
+        abstract long write(Writer out) throws IOException;
+    }
 }
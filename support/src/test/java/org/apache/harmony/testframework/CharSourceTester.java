@@ -0,0 +1,345 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests behaviour common to all implementations of {@link Reader}. This adapts
+ * readers that yield a given sequence of chars so that they may be tested.
+ */
+public abstract class CharSourceTester {
+
+    /**
+     * Creates a new reader that yields {@code data} and then reaches the end of
+     * the stream. Each time this method is invoked, any previously returned
+     * readers may be discarded.
+     */
+    public abstract Reader create(char[] data) throws Exception;
+
+    /**
+     * Returns the conformance tests for this reader, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
+    public final TestSuite createTests() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SourceTestCase("sourceTestReadEmpty"));
+        result.addTest(new SourceTestCase("sourceTestReadCharByChar"));
+        result.addTest(new SourceTestCase("sourceTestReadArray"));
+        result.addTest(new SourceTestCase("sourceTestReadOffset"));
+        result.addTest(new SourceTestCase("sourceTestReadZeroChars"));
+        result.addTest(new SourceTestCase("sourceTestReadLargeArray"));
+        result.addTest(new SourceTestCase("sourceTestSkip"));
+        result.addTest(new SourceTestCase("sourceTestReady"));
+        result.addTest(new SourceTestCase("sourceTestMarkReset"));
+
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns benchmarks of reading from this reader char by char, in small
+     * arrays and in large arrays.
+     */
+    public final TestSuite createBenchmarks() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadCharByChar"));
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadSmallArrays"));
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadLargeArrays"));
+        return result;
+    }
+
+    @Override public String toString() {
+        return getClass().getName();
+    }
+
+    private static void assertArrayEquals(char[] expected, char[] actual) {
+        Assert.assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    private static char[] randomChars(int count) {
+        char[] result = new char[count];
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            result[i] = (char) ('a' + random.nextInt(26));
+        }
+        return result;
+    }
+
+    /**
+     * Reads {@code in} to the end, {@code bufferSize} chars at a time.
+     */
+    private static char[] readFully(Reader in, int bufferSize) throws IOException {
+        CharArrayWriter result = new CharArrayWriter();
+        char[] buffer = new char[bufferSize];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            Assert.assertTrue("read returned " + count, count > 0 && count <= bufferSize);
+            result.write(buffer, 0, count);
+        }
+        return result.toCharArray();
+    }
+
+    public class SourceTestCase extends TestCase {
+
+        private SourceTestCase(String name) {
+            super(name);
+        }
+
+        public void sourceTestReadEmpty() throws Exception {
+            Reader in = create(new char[] {});
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new char[10]));
+            assertEquals(-1, in.read(new char[10], 5, 5));
+            in.close();
+        }
+
+        public void sourceTestReadCharByChar() throws Exception {
+            char[] expected = new char[] { 'A', 'b', '7', ' ', '\n', '\u00e9', '\u20ac', '\uffff', 0 };
+
+            Reader in = create(expected);
+            for (char c : expected) {
+                assertEquals(c, in.read());
+            }
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read());
+            in.close();
+        }
+
+        public void sourceTestReadArray() throws Exception {
+            char[] expected = randomChars(1000);
+
+            Reader in = create(expected);
+            assertArrayEquals(expected, readFully(in, 7));
+            in.close();
+        }
+
+        public void sourceTestReadOffset() throws Exception {
+            char[] expected = randomChars(100);
+
+            Reader in = create(expected);
+            char[] buffer = new char[200];
+            Arrays.fill(buffer, '*');
+            int total = 0;
+            while (total < expected.length) {
+                int count = in.read(buffer, 50 + total, expected.length - total);
+                assertTrue("read returned " + count, count > 0);
+                total += count;
+            }
+            assertEquals(-1, in.read(buffer, 0, 10));
+            in.close();
+
+            for (int i = 0; i < buffer.length; i++) {
+                char c = i >= 50 && i < 150 ? expected[i - 50] : '*';
+                assertEquals("at " + i, c, buffer[i]);
+            }
+        }
+
+        public void sourceTestReadZeroChars() throws Exception {
+            Reader in = create(new char[] { 'a', 'b', 'c' });
+            char[] buffer = new char[10];
+            assertEquals(0, in.read(buffer, 0, 0));
+            assertEquals(0, in.read(buffer, 10, 0));
+            assertEquals(0, in.read(new char[0]));
+            assertEquals('a', in.read());
+            in.close();
+        }
+
+        public void sourceTestReadLargeArray() throws Exception {
+            char[] expected = randomChars((1024 * 1024) + 1); // 1 M chars + 1
+
+            Reader in = create(expected);
+            assertArrayEquals(expected, readFully(in, expected.length));
+            in.close();
+        }
+
+        public void sourceTestSkip() throws Exception {
+            char[] data = randomChars(1000);
+
+            Reader in = create(data);
+            int position = 0;
+            while (position < 900) {
+                long skipped = in.skip(100);
+                assertTrue("skipped " + skipped, skipped >= 0 && skipped <= 100);
+                position += skipped;
+                // skip() may make no progress, but read() must
+                assertEquals(data[position], in.read());
+                position++;
+            }
+            while (in.read() != -1) {
+            }
+            // some streams, like files, may skip past the end
+            assertTrue(in.skip(10) >= 0);
+            assertEquals(-1, in.read());
+            in.close();
+        }
+
+        public void sourceTestReady() throws Exception {
+            char[] data = randomChars(1000);
+
+            // ready() promises only that the next read won't block
+            Reader in = create(data);
+            int position = 0;
+            char[] buffer = new char[10];
+            while (position < data.length) {
+                if (in.ready()) {
+                    assertEquals(data[position], in.read());
+                    position++;
+                } else {
+                    int count = in.read(buffer);
+                    assertTrue(count > 0);
+                    assertEquals(data[position], buffer[0]);
+                    position += count;
+                }
+            }
+            assertEquals(-1, in.read());
+            in.close();
+        }
+
+        public void sourceTestMarkReset() throws Exception {
+            char[] data = randomChars(100);
+
+            Reader in = create(data);
+            assertEquals(data[0], in.read());
+            if (!in.markSupported()) {
+                // reset() may throw; if it doesn't, the stream must stay readable
+                try {
+                    in.reset();
+                    int next = in.read();
+                    assertTrue("read " + next + " after reset()", next >= -1 && next <= 0xffff);
+                } catch (IOException permitted) {
+                }
+                in.close();
+                return;
+            }
+
+            in.mark(50);
+            char[] first = new char[50];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = (char) in.read();
+            }
+            in.reset();
+            char[] second = new char[50];
+            for (int i = 0; i < second.length; i++) {
+                second[i] = (char) in.read();
+            }
+            assertArrayEquals(first, second);
+            assertArrayEquals(Arrays.copyOfRange(data, 1, 51), second);
+
+            // resetting again returns to the same mark
+            in.reset();
+            assertEquals(data[1], in.read());
+            in.close();
+        }
+
+        // adding a new test? Don't forget to update createTests().
+
+        @Override public String getName() {
+            return CharSourceTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    public class SourceBenchmarkCase extends TestCase {
+
+        /** consumes what the benchmarks read, so it can't be optimized away */
+        private int checksum;
+
+        private SourceBenchmarkCase(String name) {
+            super(name);
+        }
+
+        public void sourceBenchmarkReadCharByChar() throws Exception {
+            final char[] data = randomChars(StreamBenchmark.SINGLE_PASS_SIZE);
+            StreamBenchmark.measure(getName(), data.length, new SourcePass(data) {
+                @Override long read(Reader in) throws IOException {
+                    int b;
+                    int sum = 0;
+                    long reads = 0;
+                    while ((b = in.read()) != -1) {
+                        sum += b;
+                        reads++;
+                    }
+                    checksum += sum;
+                    return reads;
+                }
+            });
+        }
+
+        public void sourceBenchmarkReadSmallArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.SMALL_ARRAY);
+        }
+
+        public void sourceBenchmarkReadLargeArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.LARGE_ARRAY);
+        }
+
+        private void benchmarkArrays(int arraySize) throws Exception {
+            final char[] data = randomChars(StreamBenchmark.ARRAY_PASS_SIZE);
+            final char[] buffer = new char[arraySize];
+            StreamBenchmark.measure(getName(), data.length, new SourcePass(data) {
+                @Override long read(Reader in) throws IOException {
+                    int count;
+                    long reads = 0;
+                    while ((count = in.read(buffer)) != -1) {
+                        checksum += count;
+                        reads++;
+                    }
+                    return reads;
+                }
+            });
+        }
+
+        @Override public String getName() {
+            return CharSourceTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    /**
+     * Reads a new reader of {@code data} to the end, and then closes it.
+     */
+    private abstract class SourcePass extends StreamBenchmark.Pass {
+        private final char[] data;
+        private Reader in;
+
+        SourcePass(char[] data) {
+            this.data = data;
+        }
+
+        @Override long run() throws Exception {
+            in = create(data);
+            return read(in);
+        }
+
+        @Override void finish() throws Exception {
+            in.close();
+        }
+
+        abstract long read(Reader in) throws IOException;
+    }
+}
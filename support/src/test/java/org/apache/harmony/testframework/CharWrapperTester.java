@@ -53,11 +53,15 @@ public abstract class CharWrapperTester {
         return this;
     }
 
+    /**
+     * Returns the conformance tests for this wrapper, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
     public final TestSuite createTests() {
         TestSuite result = new TestSuite();
         result.addTest(new WrapperSinkTester()
                 .setThrowsExceptions(throwsExceptions)
-                .createTests());
+                .createConformanceTests());
 
         if (throwsExceptions) {
             result.addTest(new WrapperTestCase("wrapperTestFlushThrowsViaFlush"));
@@ -69,9 +73,21 @@ public abstract class CharWrapperTester {
             result.addTest(new WrapperTestCase("wrapperTestCloseThrowsSuppressed"));
         }
 
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+
         return result;
     }
 
+    /**
+     * Returns benchmarks of writing to this wrapper, with a delegate that
+     * discards its input so that only the wrapper is measured.
+     */
+    public final TestSuite createBenchmarks() {
+        return new BenchmarkSinkTester().createBenchmarks();
+    }
+
     @Override public String toString() {
         return getClass().getName();
     }
@@ -93,6 +109,20 @@ public abstract class CharWrapperTester {
         }
     }
 
+    private class BenchmarkSinkTester extends CharSinkTester {
+        @Override public Writer create() throws Exception {
+            return CharWrapperTester.this.create(new DiscardingWriter());
+        }
+
+        @Override public char[] getChars() {
+            return null;
+        }
+
+        @Override public String toString() {
+            return CharWrapperTester.this.toString();
+        }
+    }
+
     public class WrapperTestCase extends TestCase {
 
         private WrapperTestCase(String name) {
@@ -238,4 +268,12 @@ public abstract class CharWrapperTester {
             throw new IOException("Close failed");
         }
     }
-}
\ No newline at end of file
+
+    private static class DiscardingWriter extends Writer {
+        @Override public void close() {}
+
+        @Override public void flush() {}
+
+        @Override public void write(char[] buf, int offset, int count) {}
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework;
+
+import junit.framework.AssertionFailedError;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the resources that a test left behind: open file descriptors, live
+ * non-daemon threads and files in the temporary directory. Tests that leak
+ * these slow down and destabilize the tests that later run in the same VM.
+ *
+ * <p>Checking is enabled by the {@code hy.test.leaks} system property. Every
+ * leak is then reported on standard error, like
+ * <pre>
+ *   leak tests.api.java.net.SocketTest#test_close fd 42 -> /tmp/hyts_1234.tmp
+ * </pre>
+ * and if {@code hy.test.leaks.threshold} is set, a test that leaks more than
+ * that many resources fails. File descriptors are only checked where {@code
+ * /proc/self/fd} exists. Temporary files created by concurrently running VMs
+ * that share the temporary directory may be misreported as leaks, so on the
+ * host run-harmony-tests gives each of its shards its own {@code
+ * java.io.tmpdir}.
+ *
+ * <p>Tests that extend {@code InstrumentedTestCase} check themselves; {@link
+ * LeakListener} checks any others.
+ */
+public final class LeakChecker {
+
+    public static final String ENABLED_KEY = "hy.test.leaks";
+
+    public static final String THRESHOLD_KEY = "hy.test.leaks.threshold";
+
+    /** how long to wait for leaked threads to finish on their own */
+    private static final long THREAD_SETTLE_MILLIS = 250;
+
+    private static final File FD_DIR = new File("/proc/self/fd");
+
+    private LeakChecker() {}
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_KEY);
+    }
+
+    /**
+     * The resources held by the VM at one point in time.
+     */
+    public static final class Snapshot {
+        private final Set<String> fds;
+        private final Set<Thread> threads;
+        private final Set<String> tempFiles;
+
+        private Snapshot(Set<String> fds, Set<Thread> threads, Set<String> tempFiles) {
+            this.fds = fds;
+            this.threads = threads;
+            this.tempFiles = tempFiles;
+        }
+    }
+
+    public static Snapshot snapshot() {
+        return new Snapshot(openFds(), liveThreads(), tempFiles());
+    }
+
+    /**
+     * Returns a description of each resource held now but not in {@code
+     * before}.
+     */
+    public static List<String> findLeaks(Snapshot before) {
+        List<String> result = new ArrayList<String>();
+
+        Set<Thread> threads = liveThreads();
+        threads.removeAll(before.threads);
+        long deadline = System.currentTimeMillis() + THREAD_SETTLE_MILLIS;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                result.add("thread " + thread.getName());
+            }
+        }
+
+        Set<String> fds = openFds();
+        fds.removeAll(before.fds);
+        for (String fd : sorted(fds)) {
+            result.add("fd " + fd);
+        }
+
+        Set<String> tempFiles = tempFiles();
+        tempFiles.removeAll(before.tempFiles);
+        for (String name : sorted(tempFiles)) {
+            result.add("temp file " + name);
+        }
+        return result;
+    }
+
+    /**
+     * Reports the leaks of {@code test} since {@code before}, and fails if
+     * there are more than {@code hy.test.leaks.threshold}.
+     */
+    public static void check(String test, Snapshot before) {
+        List<String> leaks = findLeaks(before);
+        for (String leak : leaks) {
+            System.err.println("leak " + test + " " + leak);
+        }
+        Integer threshold = Integer.getInteger(THRESHOLD_KEY);
+        if (threshold != null && leaks.size() > threshold) {
+            throw new AssertionFailedError(test + " leaked " + leaks.size()
+                    + " resources, more than the threshold of " + threshold + ": " + leaks);
+        }
+    }
+
+    /**
+     * Returns the open file descriptors, each like {@code 7 -> /tmp/foo}.
+     * Descriptors closed while listing, like the listing's own, are omitted.
+     */
+    private static Set<String> openFds() {
+        Set<String> result = new HashSet<String>();
+        String[] names = FD_DIR.list();
+        if (names == null) {
+            return result;
+        }
+        for (String name : names) {
+            File fd = new File(FD_DIR, name);
+            try {
+                String target = fd.getCanonicalPath();
+                if (!target.startsWith("/proc/")) {
+                    result.add(name + " -> " + target);
+                } else if (fd.exists()) {
+                    // sockets and pipes don't resolve to a path
+                    result.add(name);
+                }
+            } catch (IOException closed) {
+            }
+        }
+        return result;
+    }
+
+    private static Set<Thread> liveThreads() {
+        Set<Thread> result = new HashSet<Thread>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && !thread.isDaemon()) {
+                result.add(thread);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> tempFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list();
+        return names == null
+                ? new HashSet<String>()
+                : new HashSet<String>(Arrays.asList(names));
+    }
+
+    private static List<String> sorted(Set<String> values) {
+        List<String> result = new ArrayList<String>(values);
+        Collections.sort(result);
+        return result;
+    }
+}
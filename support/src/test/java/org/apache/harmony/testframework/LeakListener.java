@@ -0,0 +1,84 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.Test;
+import junit.framework.TestResult;
+import junit.framework.TestListener;
+
+import org.apache.harmony.testframework.perf.InstrumentedTestCase;
+import org.apache.harmony.testframework.perf.TimingListener;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Checks every test for leaked resources with {@link LeakChecker}, so that a
+ * whole suite is covered rather than just the tests that extend {@link
+ * InstrumentedTestCase}, which check themselves and are skipped here.
+ * Register it with the {@code TestResult} before running, as {@link
+ * org.apache.harmony.testframework.perf.InstrumentedTestRunner} does when
+ * {@code hy.test.leaks} is true:
+ * <pre>
+ *   TestResult result = new TestResult();
+ *   result.addListener(new LeakListener(result));
+ *   suite.run(result);
+ * </pre>
+ * A test that leaks more than {@code hy.test.leaks.threshold} resources is
+ * added to the result as a failure.
+ */
+public class LeakListener implements TestListener {
+
+    private final TestResult result;
+    private final Map<Test, LeakChecker.Snapshot> started
+            = new IdentityHashMap<Test, LeakChecker.Snapshot>();
+
+    public LeakListener(TestResult result) {
+        this.result = result;
+    }
+
+    public void startTest(Test test) {
+        if (test instanceof InstrumentedTestCase) {
+            return;
+        }
+        LeakChecker.Snapshot snapshot = LeakChecker.snapshot();
+        synchronized (this) {
+            started.put(test, snapshot);
+        }
+    }
+
+    public void endTest(Test test) {
+        LeakChecker.Snapshot snapshot;
+        synchronized (this) {
+            snapshot = started.remove(test);
+        }
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            LeakChecker.check(TimingListener.nameOf(test), snapshot);
+        } catch (AssertionFailedError e) {
+            result.addFailure(test, e);
+        }
+    }
+
+    public void addError(Test test, Throwable t) {}
+
+    public void addFailure(Test test, AssertionFailedError t) {}
+}
@@ -58,7 +58,19 @@ public abstract class SinkTester {
         return this;
     }
 
+    /**
+     * Returns the conformance tests for this stream, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
     public final TestSuite createTests() {
+        TestSuite result = createConformanceTests();
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+        return result;
+    }
+
+    TestSuite createConformanceTests() {
         TestSuite result = new TestSuite();
         result.addTest(new SinkTestCase("sinkTestNoWriting"));
         result.addTest(new SinkTestCase("sinkTestWriteZeroBytes"));
@@ -76,6 +88,18 @@ public abstract class SinkTester {
         return result;
     }
 
+    /**
+     * Returns benchmarks of writing to this stream byte by byte, in small
+     * arrays and in large arrays.
+     */
+    public final TestSuite createBenchmarks() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteByteByByte"));
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteSmallArrays"));
+        result.addTest(new SinkBenchmarkCase("sinkBenchmarkWriteLargeArrays"));
+        return result;
+    }
+
     @Override public String toString() {
         return getClass().getName();
     }
@@ -216,4 +240,65 @@ public abstract class SinkTester {
             return SinkTester.this.toString() + ":" + super.getName();
         }
     }
+
+    public class SinkBenchmarkCase extends TestCase {
+
+        private SinkBenchmarkCase(String name) {
+            super(name);
+        }
+
+        public void sinkBenchmarkWriteByteByByte() throws Exception {
+            StreamBenchmark.measure(getName(), StreamBenchmark.SINGLE_PASS_SIZE, new SinkPass() {
+                @Override long write(OutputStream out) throws IOException {
+                    for (int i = 0; i < StreamBenchmark.SINGLE_PASS_SIZE; i++) {
+                        out.write(i);
+                    }
+                    return StreamBenchmark.SINGLE_PASS_SIZE;
+                }
+            });
+        }
+
+        public void sinkBenchmarkWriteSmallArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.SMALL_ARRAY);
+        }
+
+        public void sinkBenchmarkWriteLargeArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.LARGE_ARRAY);
+        }
+
+        private void benchmarkArrays(final int arraySize) throws Exception {
+            final byte[] bytes = new byte[arraySize];
+            StreamBenchmark.measure(getName(), StreamBenchmark.ARRAY_PASS_SIZE, new SinkPass() {
+                @Override long write(OutputStream out) throws IOException {
+                    int writes = StreamBenchmark.ARRAY_PASS_SIZE / arraySize;
+                    for (int i = 0; i < writes; i++) {
+                        out.write(bytes);
+                    }
+                    return writes;
+                }
+            });
+        }
+
+        @Override public String getName() {
+            return SinkTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    /**
+     * Writes to a new stream, and then releases it with {@link #getBytes}.
+     */
+    private abstract class SinkPass extends StreamBenchmark.Pass {
+        @Override long run() throws Exception {
+            OutputStream out = create();
+            long writes = write(out);
+            out.close();
+            return writes;
+        }
+
+        @Override void finish() throws Exception {
+            getBytes();
+        }
+
+        abstract long write(OutputStream out) throws IOException;
+    }
 }
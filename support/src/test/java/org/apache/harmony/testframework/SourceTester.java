@@ -0,0 +1,339 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests behaviour common to all implementations of {@link InputStream}. This
+ * adapts streams that yield a given sequence of bytes so that they may be
+ * tested.
+ */
+public abstract class SourceTester {
+
+    /**
+     * Creates a new input stream that yields {@code data} and then reaches the
+     * end of the stream. Each time this method is invoked, any previously
+     * returned input streams may be discarded.
+     */
+    public abstract InputStream create(byte[] data) throws Exception;
+
+    /**
+     * Returns the conformance tests for this stream, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
+    public final TestSuite createTests() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SourceTestCase("sourceTestReadEmpty"));
+        result.addTest(new SourceTestCase("sourceTestReadByteByByte"));
+        result.addTest(new SourceTestCase("sourceTestReadArray"));
+        result.addTest(new SourceTestCase("sourceTestReadOffset"));
+        result.addTest(new SourceTestCase("sourceTestReadZeroBytes"));
+        result.addTest(new SourceTestCase("sourceTestReadLargeArray"));
+        result.addTest(new SourceTestCase("sourceTestSkip"));
+        result.addTest(new SourceTestCase("sourceTestAvailable"));
+        result.addTest(new SourceTestCase("sourceTestMarkReset"));
+
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns benchmarks of reading from this stream byte by byte, in small
+     * arrays and in large arrays.
+     */
+    public final TestSuite createBenchmarks() {
+        TestSuite result = new TestSuite();
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadByteByByte"));
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadSmallArrays"));
+        result.addTest(new SourceBenchmarkCase("sourceBenchmarkReadLargeArrays"));
+        return result;
+    }
+
+    @Override public String toString() {
+        return getClass().getName();
+    }
+
+    private static void assertArrayEquals(byte[] expected, byte[] actual) {
+        Assert.assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    private static byte[] randomBytes(int count) {
+        byte[] result = new byte[count];
+        new Random(count).nextBytes(result);
+        return result;
+    }
+
+    /**
+     * Reads {@code in} to the end, {@code bufferSize} bytes at a time.
+     */
+    private static byte[] readFully(InputStream in, int bufferSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            Assert.assertTrue("read returned " + count, count > 0 && count <= bufferSize);
+            result.write(buffer, 0, count);
+        }
+        return result.toByteArray();
+    }
+
+    public class SourceTestCase extends TestCase {
+
+        private SourceTestCase(String name) {
+            super(name);
+        }
+
+        public void sourceTestReadEmpty() throws Exception {
+            InputStream in = create(new byte[] {});
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[10]));
+            assertEquals(-1, in.read(new byte[10], 5, 5));
+            in.close();
+        }
+
+        public void sourceTestReadByteByByte() throws Exception {
+            byte[] expected = new byte[] { 5, 6, 7, 3, 4, 5, 3, 2, 1, -1, -128, 127 };
+
+            InputStream in = create(expected);
+            for (byte b : expected) {
+                assertEquals(b & 0xff, in.read());
+            }
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read());
+            in.close();
+        }
+
+        public void sourceTestReadArray() throws Exception {
+            byte[] expected = randomBytes(1000);
+
+            InputStream in = create(expected);
+            assertArrayEquals(expected, readFully(in, 7));
+            in.close();
+        }
+
+        public void sourceTestReadOffset() throws Exception {
+            byte[] expected = randomBytes(100);
+
+            InputStream in = create(expected);
+            byte[] buffer = new byte[200];
+            Arrays.fill(buffer, (byte) 42);
+            int total = 0;
+            while (total < expected.length) {
+                int count = in.read(buffer, 50 + total, expected.length - total);
+                assertTrue("read returned " + count, count > 0);
+                total += count;
+            }
+            assertEquals(-1, in.read(buffer, 0, 10));
+            in.close();
+
+            for (int i = 0; i < buffer.length; i++) {
+                byte b = i >= 50 && i < 150 ? expected[i - 50] : 42;
+                assertEquals("at " + i, b, buffer[i]);
+            }
+        }
+
+        public void sourceTestReadZeroBytes() throws Exception {
+            InputStream in = create(new byte[] { 5, 6, 7 });
+            byte[] buffer = new byte[10];
+            assertEquals(0, in.read(buffer, 0, 0));
+            assertEquals(0, in.read(buffer, 10, 0));
+            assertEquals(0, in.read(new byte[0]));
+            assertEquals(5, in.read());
+            in.close();
+        }
+
+        public void sourceTestReadLargeArray() throws Exception {
+            byte[] expected = randomBytes((1024 * 1024) + 1); // 1 MB + 1 byte
+
+            InputStream in = create(expected);
+            assertArrayEquals(expected, readFully(in, expected.length));
+            in.close();
+        }
+
+        public void sourceTestSkip() throws Exception {
+            byte[] data = randomBytes(1000);
+
+            InputStream in = create(data);
+            int position = 0;
+            while (position < 900) {
+                long skipped = in.skip(100);
+                assertTrue("skipped " + skipped, skipped >= 0 && skipped <= 100);
+                position += skipped;
+                // skip() may make no progress, but read() must
+                assertEquals(data[position] & 0xff, in.read());
+                position++;
+            }
+            while (in.read() != -1) {
+            }
+            // some streams, like files, may skip past the end
+            assertTrue(in.skip(10) >= 0);
+            assertEquals(-1, in.read());
+            in.close();
+        }
+
+        public void sourceTestAvailable() throws Exception {
+            byte[] data = randomBytes(1000);
+
+            InputStream in = create(data);
+            int position = 0;
+            byte[] buffer = new byte[10];
+            while (position < data.length) {
+                int available = in.available();
+                assertTrue("available " + available + " of " + (data.length - position),
+                        available >= 0 && available <= data.length - position);
+                int count = in.read(buffer);
+                assertTrue(count > 0);
+                position += count;
+            }
+            assertEquals(0, in.available());
+            in.close();
+        }
+
+        public void sourceTestMarkReset() throws Exception {
+            byte[] data = randomBytes(100);
+
+            InputStream in = create(data);
+            assertEquals(data[0] & 0xff, in.read());
+            if (!in.markSupported()) {
+                // reset() may throw; if it doesn't, the stream must stay readable
+                try {
+                    in.reset();
+                    int next = in.read();
+                    assertTrue("read " + next + " after reset()", next >= -1 && next <= 0xff);
+                } catch (IOException permitted) {
+                }
+                in.close();
+                return;
+            }
+
+            in.mark(50);
+            byte[] first = new byte[50];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = (byte) in.read();
+            }
+            in.reset();
+            byte[] second = new byte[50];
+            for (int i = 0; i < second.length; i++) {
+                second[i] = (byte) in.read();
+            }
+            assertArrayEquals(first, second);
+            assertArrayEquals(Arrays.copyOfRange(data, 1, 51), second);
+
+            // resetting again returns to the same mark
+            in.reset();
+            assertEquals(data[1] & 0xff, in.read());
+            in.close();
+        }
+
+        // adding a new test? Don't forget to update createTests().
+
+        @Override public String getName() {
+            return SourceTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    public class SourceBenchmarkCase extends TestCase {
+
+        /** consumes what the benchmarks read, so it can't be optimized away */
+        private int checksum;
+
+        private SourceBenchmarkCase(String name) {
+            super(name);
+        }
+
+        public void sourceBenchmarkReadByteByByte() throws Exception {
+            final byte[] data = randomBytes(StreamBenchmark.SINGLE_PASS_SIZE);
+            StreamBenchmark.measure(getName(), data.length, new SourcePass(data) {
+                @Override long read(InputStream in) throws IOException {
+                    int b;
+                    int sum = 0;
+                    long reads = 0;
+                    while ((b = in.read()) != -1) {
+                        sum += b;
+                        reads++;
+                    }
+                    checksum += sum;
+                    return reads;
+                }
+            });
+        }
+
+        public void sourceBenchmarkReadSmallArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.SMALL_ARRAY);
+        }
+
+        public void sourceBenchmarkReadLargeArrays() throws Exception {
+            benchmarkArrays(StreamBenchmark.LARGE_ARRAY);
+        }
+
+        private void benchmarkArrays(int arraySize) throws Exception {
+            final byte[] data = randomBytes(StreamBenchmark.ARRAY_PASS_SIZE);
+            final byte[] buffer = new byte[arraySize];
+            StreamBenchmark.measure(getName(), data.length, new SourcePass(data) {
+                @Override long read(InputStream in) throws IOException {
+                    int count;
+                    long reads = 0;
+                    while ((count = in.read(buffer)) != -1) {
+                        checksum += count;
+                        reads++;
+                    }
+                    return reads;
+                }
+            });
+        }
+
+        @Override public String getName() {
+            return SourceTester.this.toString() + ":" + super.getName();
+        }
+    }
+
+    /**
+     * Reads a new stream of {@code data} to the end, and then closes it.
+     */
+    private abstract class SourcePass extends StreamBenchmark.Pass {
+        private final byte[] data;
+        private InputStream in;
+
+        SourcePass(byte[] data) {
+            this.data = data;
+        }
+
+        @Override long run() throws Exception {
+            in = create(data);
+            return read(in);
+        }
+
+        @Override void finish() throws Exception {
+            in.close();
+        }
+
+        abstract long read(InputStream in) throws IOException;
+    }
+}
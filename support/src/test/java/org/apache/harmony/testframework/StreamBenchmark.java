@@ -0,0 +1,125 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework;
+
+import org.apache.harmony.testframework.perf.BenchmarkCase;
+import org.apache.harmony.testframework.perf.BenchmarkResult;
+import org.apache.harmony.testframework.perf.ThreadStats;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures the throughput of the benchmarks generated by the stream testers.
+ * A benchmark repeats a pass, like writing 1 MiB to a fresh stream, first to
+ * warm up and then for a fixed time, and reports its rate in MB/s, the 95%
+ * confidence interval of that rate, and the bytes allocated per call into the
+ * stream.
+ *
+ * <p>The testers only include their benchmarks in {@code createTests()} when
+ * the {@code hy.test.benchmarks} system property is true. Each result is
+ * printed on a line of its own:
+ * <pre>
+ *   benchmark &lt;test name&gt; &lt;MB/s&gt; MB/s ci95=&lt;MB/s&gt; alloc=&lt;bytes per call&gt;
+ * </pre>
+ * where the allocation figure is -1 if the VM can't measure it.
+ */
+final class StreamBenchmark {
+
+    static final String MILLIS_KEY = BenchmarkCase.MILLIS_KEY;
+
+    /** the array sizes of the small and large array patterns */
+    static final int SMALL_ARRAY = 16;
+    static final int LARGE_ARRAY = 64 * 1024;
+
+    /** the bytes or chars moved per pass of the single-element pattern */
+    static final int SINGLE_PASS_SIZE = 64 * 1024;
+
+    /** the bytes or chars moved per pass of the array patterns */
+    static final int ARRAY_PASS_SIZE = 1024 * 1024;
+
+    private static final int WARMUP_PASSES = 5;
+
+    private StreamBenchmark() {}
+
+    static boolean isEnabled() {
+        return BenchmarkCase.isEnabled();
+    }
+
+    /**
+     * One unit of benchmarked work.
+     */
+    static abstract class Pass {
+        /**
+         * Moves a fixed number of bytes or chars through a stream and returns
+         * the number of read or write calls that took.
+         */
+        abstract long run() throws Exception;
+
+        /**
+         * Releases what {@link #run} created, like the tester's stream. This
+         * isn't measured.
+         */
+        void finish() throws Exception {}
+    }
+
+    /**
+     * Runs {@code pass}, which moves {@code passSize} bytes or chars,
+     * repeatedly and prints its throughput under {@code name}.
+     */
+    static void measure(String name, int passSize, Pass pass) throws Exception {
+        long millis = Long.getLong(MILLIS_KEY, 500);
+
+        // warm up for as long as we'll measure, so the JIT has settled
+        long warmupEnd = System.nanoTime() + millis * 1000000L;
+        for (int i = 0; i < WARMUP_PASSES || System.nanoTime() < warmupEnd; i++) {
+            pass.run();
+            pass.finish();
+        }
+
+        double[] passNanos = new double[16];
+        int passes = 0;
+        long calls = 0;
+        long elapsed = 0;
+        long allocated = 0;
+        do {
+            long allocatedBefore = ThreadStats.allocatedBytes();
+            long start = System.nanoTime();
+            calls += pass.run();
+            long nanos = System.nanoTime() - start;
+            long passAllocated = ThreadStats.delta(allocatedBefore, ThreadStats.allocatedBytes());
+            allocated = allocated == -1 || passAllocated == -1 ? -1 : allocated + passAllocated;
+            pass.finish();
+            if (passes == passNanos.length) {
+                passNanos = Arrays.copyOf(passNanos, passes * 2);
+            }
+            passNanos[passes++] = nanos;
+            elapsed += nanos;
+        } while (elapsed < millis * 1000000L);
+
+        double megabytesPerSecond = (passes * (double) passSize / (1024 * 1024))
+                / (elapsed / 1e9);
+        // the rate's relative error is that of the mean pass time
+        BenchmarkResult times = new BenchmarkResult(name, 1,
+                Arrays.copyOf(passNanos, passes), -1);
+        double error = megabytesPerSecond * times.getConfidenceInterval() / times.getMean();
+        long allocatedPerCall = allocated == -1 ? -1 : allocated / calls;
+        System.out.println(String.format(Locale.US, "benchmark %s %.1f MB/s ci95=%.1f alloc=%d",
+                name, megabytesPerSecond, error, allocatedPerCall));
+    }
+}
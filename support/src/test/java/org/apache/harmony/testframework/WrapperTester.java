@@ -54,11 +54,15 @@ public abstract class WrapperTester {
         return this;
     }
 
+    /**
+     * Returns the conformance tests for this wrapper, followed by its
+     * benchmarks if the {@code hy.test.benchmarks} system property is true.
+     */
     public final TestSuite createTests() {
         TestSuite result = new TestSuite();
         result.addTest(new WrapperSinkTester()
                 .setThrowsExceptions(throwsExceptions)
-                .createTests());
+                .createConformanceTests());
 
         if (throwsExceptions) {
             result.addTest(new WrapperTestCase("wrapperTestFlushThrowsViaFlush"));
@@ -70,9 +74,21 @@ public abstract class WrapperTester {
             result.addTest(new WrapperTestCase("wrapperTestCloseThrowsSuppressed"));
         }
 
+        if (StreamBenchmark.isEnabled()) {
+            result.addTest(createBenchmarks());
+        }
+
         return result;
     }
 
+    /**
+     * Returns benchmarks of writing to this wrapper, with a delegate that
+     * discards its input so that only the wrapper is measured.
+     */
+    public final TestSuite createBenchmarks() {
+        return new BenchmarkSinkTester().createBenchmarks();
+    }
+
     @Override public String toString() {
         return getClass().getName();
     }
@@ -94,6 +110,20 @@ public abstract class WrapperTester {
         }
     }
 
+    private class BenchmarkSinkTester extends SinkTester {
+        @Override public OutputStream create() throws Exception {
+            return WrapperTester.this.create(new DiscardingOutputStream());
+        }
+
+        @Override public byte[] getBytes() {
+            return null;
+        }
+
+        @Override public String toString() {
+            return WrapperTester.this.toString();
+        }
+    }
+
     public class WrapperTestCase extends TestCase {
 
         private WrapperTestCase(String name) {
@@ -229,4 +259,10 @@ public abstract class WrapperTester {
             throw new IOException("Close failed");
         }
     }
+
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override public void write(int oneByte) {}
+
+        @Override public void write(byte[] buffer, int offset, int count) {}
+    }
 }
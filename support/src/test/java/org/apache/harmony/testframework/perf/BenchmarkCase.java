@@ -0,0 +1,238 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A test case whose test methods measure operations with {@link #measure}.
+ * It needs nothing beyond the core libraries and JUnit, so it runs on Dalvik
+ * as well as on host VMs.
+ *
+ * <p>An operation is measured in three phases:
+ * <ol>
+ *   <li>Calibration doubles the number of repetitions per sample until a
+ *       sample takes at least 10 ms, so that timer resolution doesn't matter.
+ *   <li>Warm-up takes samples until the median of the last five is within 5%
+ *       of the median of the five before them, so that the JIT has settled.
+ *   <li>Measurement takes {@code hy.test.benchmark.samples} samples, 20 by
+ *       default, recording the time and allocations of each.
+ * </ol>
+ * Warm-up and measurement each stop early once they've taken more than
+ * {@code hy.test.benchmark.millis}, 2000 by default. The result is printed
+ * in the format of {@link BenchmarkResult#toString}. Benchmarks that run with
+ * several parameters append them to the name in brackets, as built by {@link
+ * #withParams}, and run-harmony-benchmarks reports them separately.
+ *
+ * <p>Unless the {@code hy.test.benchmarks} system property is true, {@link
+ * #measure} runs the operation just once, so that benchmarks still work as
+ * quick tests of the code they measure.
+ *
+ * <pre>
+ *   public void testSort() throws Exception {
+ *       measure("sort", new Operation() {
+ *           public void run(int reps) {
+ *               for (int i = 0; i < reps; i++) {
+ *                   int[] copy = data.clone();
+ *                   Arrays.sort(copy);
+ *                   blackhole.consume(copy[0]);
+ *               }
+ *           }
+ *       });
+ *   }
+ * </pre>
+ */
+public abstract class BenchmarkCase extends TestCase {
+
+    public static final String ENABLED_KEY = "hy.test.benchmarks";
+
+    public static final String SAMPLES_KEY = "hy.test.benchmark.samples";
+
+    public static final String MILLIS_KEY = "hy.test.benchmark.millis";
+
+    private static final long TARGET_SAMPLE_NANOS = 10 * 1000000L;
+    private static final int WARMUP_WINDOW = 5;
+    private static final double WARMUP_TOLERANCE = 0.05;
+    private static final int MIN_SAMPLES = 3;
+
+    /**
+     * Code to be measured.
+     */
+    public interface Operation {
+        /**
+         * Runs the measured operation {@code reps} times.
+         */
+        void run(int reps) throws Exception;
+    }
+
+    /**
+     * Consumes results that would otherwise be unused, so that the code that
+     * computes them isn't optimized away.
+     */
+    protected final Blackhole blackhole = new Blackhole();
+
+    public BenchmarkCase() {
+    }
+
+    public BenchmarkCase(String name) {
+        super(name);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_KEY);
+    }
+
+    /**
+     * Returns {@code name} followed by the given parameters, like {@code
+     * get[size=1000,load=0.75]}. Keys and values mustn't contain spaces,
+     * commas, brackets or '='.
+     */
+    public static String withParams(String name, Object... keysAndValues) {
+        if (keysAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("unpaired key in " + Arrays.toString(keysAndValues));
+        }
+        StringBuilder result = new StringBuilder(name).append('[');
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(keysAndValues[i]).append('=').append(keysAndValues[i + 1]);
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Measures {@code operation} and prints the result under this class's name
+     * and {@code name}.
+     */
+    protected BenchmarkResult measure(String name, Operation operation) throws Exception {
+        String fullName = getClass().getName() + "#" + name;
+        if (!isEnabled()) {
+            long nanos = time(operation, 1);
+            return new BenchmarkResult(fullName, 1, new double[] { nanos }, -1);
+        }
+
+        long budgetNanos = Long.getLong(MILLIS_KEY, 2000) * 1000000L;
+        int sampleCount = Integer.getInteger(SAMPLES_KEY, 20);
+
+        int reps = calibrate(operation);
+        warmUp(operation, reps, budgetNanos);
+
+        double[] samples = new double[sampleCount];
+        long allocated = 0;
+        int taken = 0;
+        long start = System.nanoTime();
+        while (taken < sampleCount
+                && (taken < MIN_SAMPLES || System.nanoTime() - start < budgetNanos)) {
+            long allocatedBefore = ThreadStats.allocatedBytes();
+            long nanos = time(operation, reps);
+            long sampleAllocated = ThreadStats.delta(allocatedBefore, ThreadStats.allocatedBytes());
+            allocated = allocated == -1 || sampleAllocated == -1 ? -1 : allocated + sampleAllocated;
+            samples[taken++] = (double) nanos / reps;
+        }
+
+        BenchmarkResult result = new BenchmarkResult(fullName, reps,
+                Arrays.copyOf(samples, taken),
+                allocated == -1 ? -1 : (double) allocated / ((long) taken * reps));
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Prints a result that wasn't measured by {@link #measure}, like a
+     * throughput or a footprint, if benchmarks are enabled. It's named by this
+     * class and {@code name}, and {@code format} and {@code args} give the
+     * score, its unit and any metrics, like {@code "%.1f ops/s scaling=%.2f"}.
+     * Numbers are formatted for {@link Locale#US}, as run-harmony-benchmarks
+     * expects.
+     */
+    protected void printResult(String name, String format, Object... args) {
+        if (isEnabled()) {
+            System.out.println("benchmark " + getClass().getName() + "#" + name + " "
+                    + String.format(Locale.US, format, args));
+        }
+    }
+
+    /**
+     * Returns an empty histogram for the latencies of single operations,
+     * named like the results of {@link #measure}. Print it when {@link
+     * #isEnabled} to report it.
+     */
+    protected LatencyHistogram latencies(String name) {
+        return new LatencyHistogram(getClass().getName() + "#" + name);
+    }
+
+    /**
+     * Returns the number of repetitions that takes at least {@link
+     * #TARGET_SAMPLE_NANOS}.
+     */
+    private static int calibrate(Operation operation) throws Exception {
+        int reps = 1;
+        while (reps < (1 << 30)) {
+            long nanos = time(operation, reps);
+            if (nanos >= TARGET_SAMPLE_NANOS) {
+                break;
+            }
+            reps *= 2;
+        }
+        return reps;
+    }
+
+    private static void warmUp(Operation operation, int reps, long budgetNanos)
+            throws Exception {
+        List<Double> samples = new ArrayList<Double>();
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < budgetNanos) {
+            samples.add((double) time(operation, reps) / reps);
+            if (isWarm(samples)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the median of the last {@link #WARMUP_WINDOW} samples is
+     * within {@link #WARMUP_TOLERANCE} of the median of the window before.
+     */
+    static boolean isWarm(List<Double> samples) {
+        int size = samples.size();
+        if (size < 2 * WARMUP_WINDOW) {
+            return false;
+        }
+        double previous = median(samples.subList(size - 2 * WARMUP_WINDOW, size - WARMUP_WINDOW));
+        double current = median(samples.subList(size - WARMUP_WINDOW, size));
+        return Math.abs(current - previous) <= WARMUP_TOLERANCE * previous;
+    }
+
+    private static double median(List<Double> values) {
+        Double[] sorted = values.toArray(new Double[values.size()]);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long time(Operation operation, int reps) throws Exception {
+        long start = System.nanoTime();
+        operation.run(reps);
+        return System.nanoTime() - start;
+    }
+}
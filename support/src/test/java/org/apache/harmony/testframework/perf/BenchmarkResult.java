@@ -0,0 +1,165 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The statistics of one benchmark's samples. Each sample is the mean time of
+ * {@code reps} consecutive operations, so the percentiles describe the
+ * distribution of those means rather than of single operations.
+ */
+public final class BenchmarkResult {
+
+    /** two-sided 95% quantiles of Student's t distribution, by degrees of freedom */
+    private static final double[] T_95 = {
+            Double.NaN, 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+            2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093,
+            2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045,
+            2.042,
+    };
+
+    private final String name;
+    private final int reps;
+    private final double[] nanosPerOp;
+    private final double allocatedBytesPerOp;
+
+    /**
+     * @param nanosPerOp the time per operation of each sample.
+     * @param allocatedBytesPerOp the bytes allocated per operation, or -1 if
+     *     unknown.
+     */
+    public BenchmarkResult(String name, int reps, double[] nanosPerOp,
+            double allocatedBytesPerOp) {
+        if (nanosPerOp.length == 0) {
+            throw new IllegalArgumentException("no samples for " + name);
+        }
+        this.name = name;
+        this.reps = reps;
+        this.nanosPerOp = nanosPerOp.clone();
+        Arrays.sort(this.nanosPerOp);
+        this.allocatedBytesPerOp = allocatedBytesPerOp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getReps() {
+        return reps;
+    }
+
+    public int getSampleCount() {
+        return nanosPerOp.length;
+    }
+
+    public double getAllocatedBytesPerOp() {
+        return allocatedBytesPerOp;
+    }
+
+    public double getMedian() {
+        return getPercentile(50);
+    }
+
+    public double getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * Returns the nearest-rank {@code percent}th percentile of the samples.
+     */
+    public double getPercentile(double percent) {
+        int rank = (int) Math.ceil(percent / 100 * nanosPerOp.length);
+        return nanosPerOp[Math.max(0, Math.min(nanosPerOp.length - 1, rank - 1))];
+    }
+
+    public double getMean() {
+        double sum = 0;
+        for (double sample : nanosPerOp) {
+            sum += sample;
+        }
+        return sum / nanosPerOp.length;
+    }
+
+    public double getStandardDeviation() {
+        if (nanosPerOp.length < 2) {
+            return 0;
+        }
+        double mean = getMean();
+        double sumOfSquares = 0;
+        for (double sample : nanosPerOp) {
+            sumOfSquares += (sample - mean) * (sample - mean);
+        }
+        return Math.sqrt(sumOfSquares / (nanosPerOp.length - 1));
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the mean, or
+     * infinity if there's only one sample.
+     */
+    public double getConfidenceInterval() {
+        int degreesOfFreedom = nanosPerOp.length - 1;
+        if (degreesOfFreedom == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = degreesOfFreedom < T_95.length ? T_95[degreesOfFreedom] : 1.96;
+        return t * getStandardDeviation() / Math.sqrt(nanosPerOp.length);
+    }
+
+    /**
+     * Returns the half-width of a 95% confidence interval of the median, or
+     * infinity if there are too few samples for one. The interval lies
+     * between the j-th smallest and j-th largest samples, for the largest j
+     * such that fewer than j of the samples fall below the true median with
+     * a probability of at most 2.5%, so it doesn't assume a distribution.
+     * Its wider side is returned.
+     */
+    public double getMedianConfidenceInterval() {
+        int n = nanosPerOp.length;
+        // the number of samples below the median has a binomial(n, 1/2) distribution
+        double logProbability = -n * Math.log(2);
+        double cumulative = 0;
+        int j = 0;
+        while (j < n / 2) {
+            cumulative += Math.exp(logProbability);
+            if (cumulative > 0.025) {
+                break;
+            }
+            logProbability += Math.log(n - j) - Math.log(j + 1);
+            j++;
+        }
+        if (j == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double median = getMedian();
+        return Math.max(median - nanosPerOp[j - 1], nanosPerOp[n - j] - median);
+    }
+
+    /**
+     * Returns this result as a line for run-harmony-benchmarks, like
+     * {@code benchmark Foo#bar 1234.5 ns/op p99=... ci95=... alloc=... samples=... reps=...},
+     * whose score is the median and ci95 the error of the median.
+     */
+    @Override public String toString() {
+        return String.format(Locale.US, "benchmark %s %.1f ns/op p99=%.1f mean=%.1f ci95=%.1f"
+                + " alloc=%.1f samples=%d reps=%d",
+                name, getMedian(), getP99(), getMean(), getMedianConfidenceInterval(),
+                allocatedBytesPerOp, nanosPerOp.length, reps);
+    }
+}
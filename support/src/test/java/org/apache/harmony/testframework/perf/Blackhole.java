@@ -0,0 +1,78 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+/**
+ * Consumes the results of benchmarked code, so that the compiler can't prove
+ * them unused and remove the code that computed them. Consuming a value costs
+ * a field read, a compare and a field write.
+ */
+public final class Blackhole {
+
+    /** never equal to a consumed value in practice; volatile so they're always read */
+    private volatile int sentinel = 0x5EED1E55;
+    private volatile Object sentinelObject = new Object();
+
+    private int ints;
+    private long longs;
+    private double doubles;
+    private Object last;
+
+    public void consume(int value) {
+        ints ^= value;
+        if (value == sentinel) {
+            last = this;
+        }
+    }
+
+    public void consume(long value) {
+        longs ^= value;
+        if (value == sentinel) {
+            last = this;
+        }
+    }
+
+    public void consume(double value) {
+        doubles += value;
+        if (value == sentinel) {
+            last = this;
+        }
+    }
+
+    public void consume(boolean value) {
+        consume(value ? 1 : 0);
+    }
+
+    public void consume(Object value) {
+        if (value == sentinelObject) {
+            last = value;
+        }
+    }
+
+    /**
+     * Returns a value derived from everything consumed so far.
+     */
+    @Override public int hashCode() {
+        return ints ^ (int) longs ^ (int) Double.doubleToLongBits(doubles)
+                ^ System.identityHashCode(last);
+    }
+
+    @Override public boolean equals(Object o) {
+        return o == this;
+    }
+}
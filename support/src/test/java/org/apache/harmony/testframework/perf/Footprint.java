@@ -0,0 +1,185 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+/**
+ * Measures how much heap objects retain, from the change in used heap across
+ * full garbage collections. Unlike walking the heap, this works the same on
+ * host VMs and on Dalvik, but it's only accurate to within some kilobytes,
+ * so measure enough copies of small objects that this doesn't matter.
+ *
+ * <pre>
+ *   double bytesPerMap = Footprint.retainedBytes(1000, new Footprint.Factory() {
+ *       public Object create() {
+ *           return new HashMap&lt;Integer, Integer&gt;();
+ *       }
+ *   });
+ * </pre>
+ */
+public final class Footprint {
+
+    /** the most collections to run while waiting for the used heap to settle */
+    private static final int MAX_COLLECTIONS = 20;
+
+    /** the collections that must free nothing before the used heap counts as settled */
+    private static final int SETTLED_COLLECTIONS = 3;
+
+    /** the copies measured to find the layout, enough to make the error negligible */
+    private static final int LAYOUT_COPIES = 64 * 1024;
+
+    private static Layout layout;
+
+    private Footprint() {}
+
+    /**
+     * The sizes of references and object headers on the running VM, from
+     * which the sizes of objects and arrays can be worked out. Objects are
+     * assumed to be 8-byte aligned and their fields packed, which holds on
+     * HotSpot and Dalvik.
+     */
+    public static final class Layout {
+        public final int referenceBytes;
+        public final int headerBytes;
+
+        public Layout(int referenceBytes, int headerBytes) {
+            this.referenceBytes = referenceBytes;
+            this.headerBytes = headerBytes;
+        }
+
+        /**
+         * Returns the size of an object with {@code references} reference
+         * fields and {@code primitiveBytes} bytes of primitive fields.
+         */
+        public long objectBytes(int references, int primitiveBytes) {
+            return align(headerBytes + (long) references * referenceBytes + primitiveBytes, 8);
+        }
+
+        /**
+         * Returns the size of an array of {@code length} elements of {@code
+         * elementBytes} each.
+         */
+        public long arrayBytes(long length, int elementBytes) {
+            // the elements follow the length, aligned to their size up to 8 bytes
+            long dataOffset = align(headerBytes + 4, Math.min(elementBytes, 8));
+            return align(dataOffset + length * elementBytes, 8);
+        }
+
+        public long referenceArrayBytes(long length) {
+            return arrayBytes(length, referenceBytes);
+        }
+
+        @Override public String toString() {
+            return referenceBytes + "-byte references and " + headerBytes + "-byte headers";
+        }
+
+        private static long align(long bytes, int alignment) {
+            return (bytes + alignment - 1) / alignment * alignment;
+        }
+    }
+
+    /** an object with a single 4-byte field, to tell a 12-byte header from a 16-byte one */
+    private static final class OneInt {
+        int value;
+    }
+
+    /**
+     * Returns the layout of the running VM, measuring it on first use. The
+     * reference size is what a large array retains per element, and the
+     * header size follows from what an empty object retains, and whether a
+     * field fits beside its header without growing it.
+     */
+    public static synchronized Layout layout() throws Exception {
+        if (layout == null) {
+            final int length = LAYOUT_COPIES;
+            long referenceBytes = Math.round(retainedBytes(1, new Factory() {
+                public Object create() {
+                    return new Object[length];
+                }
+            }) / length);
+            long emptyBytes = Math.round(retainedBytes(LAYOUT_COPIES, new Factory() {
+                public Object create() {
+                    return new Object();
+                }
+            }));
+            long oneIntBytes = Math.round(retainedBytes(LAYOUT_COPIES, new Factory() {
+                public Object create() {
+                    return new OneInt();
+                }
+            }));
+            // a 12-byte header leaves room for the int in the padding of an empty object
+            long headerBytes = oneIntBytes == emptyBytes ? emptyBytes - 4 : emptyBytes;
+            layout = new Layout((int) referenceBytes, (int) headerBytes);
+        }
+        return layout;
+    }
+
+    /**
+     * Creates objects to be measured.
+     */
+    public interface Factory {
+        /**
+         * Returns a new object. Anything it shares with earlier objects, like
+         * their keys, should have been created before measuring started.
+         */
+        Object create() throws Exception;
+    }
+
+    /**
+     * Returns the mean number of bytes retained by each of {@code copies}
+     * objects created by {@code factory}.
+     */
+    public static double retainedBytes(int copies, Factory factory) throws Exception {
+        Object[] objects = new Object[copies];
+        long before = usedBytes();
+        for (int i = 0; i < copies; i++) {
+            objects[i] = factory.create();
+        }
+        long after = usedBytes();
+        // keep the objects reachable until they've been measured
+        if (objects[copies - 1] == null) {
+            throw new NullPointerException("factory returned null");
+        }
+        return (double) (after - before) / copies;
+    }
+
+    /**
+     * Collects garbage until the used heap stops shrinking, and returns it.
+     * Some collectors don't reclaim everything in the first full collection
+     * after a burst of allocation, so this waits for several that don't help.
+     */
+    public static long usedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        int collectionsWithoutProgress = 0;
+        for (int i = 0; i < MAX_COLLECTIONS && collectionsWithoutProgress < SETTLED_COLLECTIONS;
+                i++) {
+            // collect last, as allocating would claim a new thread-local buffer that
+            // counts as used
+            System.runFinalization();
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now < used) {
+                used = now;
+                collectionsWithoutProgress = 0;
+            } else {
+                collectionsWithoutProgress++;
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Reads how many garbage collections the VM has run and how long they took.
+ * Unlike {@link ThreadStats}, these counts are for the whole VM, so they
+ * include collections triggered by other threads. Like it, everything is
+ * looked up reflectively, and each method returns -1 if the running VM doesn't
+ * support the measurement.
+ */
+public final class GcStats {
+
+    private static final List<?> collectorBeans;
+    private static final Method collectionCount;
+    private static final Method collectionTime;
+
+    private static final Method vmDebugAllocCount;
+    private static final int vmDebugGcInvocations;
+
+    static {
+        List<?> beans = null;
+        Method count = null;
+        Method time = null;
+        try {
+            beans = (List<?>) Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getGarbageCollectorMXBeans").invoke(null);
+            Class<?> beanClass = Class.forName("java.lang.management.GarbageCollectorMXBean");
+            count = beanClass.getMethod("getCollectionCount");
+            time = beanClass.getMethod("getCollectionTime");
+        } catch (Throwable unsupported) {
+            beans = null;
+        }
+        collectorBeans = beans;
+        collectionCount = count;
+        collectionTime = time;
+
+        Method vmAllocCount = null;
+        int vmGcInvocations = 0;
+        try {
+            Class<?> vmDebug = Class.forName("dalvik.system.VMDebug");
+            vmAllocCount = vmDebug.getMethod("getAllocCount", int.class);
+            vmGcInvocations = vmDebug.getField("KIND_GLOBAL_GC_INVOCATIONS").getInt(null);
+            vmDebug.getMethod("startAllocCounting").invoke(null);
+        } catch (Throwable unsupported) {
+            vmAllocCount = null;
+        }
+        vmDebugAllocCount = vmAllocCount;
+        vmDebugGcInvocations = vmGcInvocations;
+    }
+
+    private GcStats() {}
+
+    /**
+     * Returns the number of collections since some arbitrary point; only the
+     * difference between two calls is meaningful.
+     */
+    public static long count() {
+        try {
+            if (collectorBeans != null) {
+                return sum(collectionCount);
+            }
+            if (vmDebugAllocCount != null) {
+                return (Integer) vmDebugAllocCount.invoke(null, vmDebugGcInvocations);
+            }
+        } catch (Exception unsupported) {
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the time spent collecting since some arbitrary point, in
+     * nanoseconds. Dalvik doesn't report this.
+     */
+    public static long timeNanos() {
+        try {
+            if (collectorBeans != null) {
+                long millis = sum(collectionTime);
+                return millis == -1 ? -1 : millis * 1000000L;
+            }
+        } catch (Exception unsupported) {
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the sum of {@code getter} over all collectors, or -1 if none of
+     * them supports it.
+     */
+    private static long sum(Method getter) throws Exception {
+        long result = -1;
+        for (Object bean : collectorBeans) {
+            long value = (Long) getter.invoke(bean);
+            if (value != -1) {
+                result = (result == -1 ? 0 : result) + value;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.TestCase;
+
+import org.apache.harmony.testframework.LeakChecker;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+/**
+ * A test case that measures each of its test methods. It records the wall
+ * time, CPU time, allocated bytes, and number and duration of garbage
+ * collections of every test to the {@link TimingDatabase} named by the {@code
+ * hy.test.timings} system property, if that's set, so that {@link
+ * TimingReport} covers them. A {@link TimingListener} skips these tests, so
+ * they aren't recorded twice.
+ *
+ * <p>Test methods annotated with {@link AllocationBudget} fail if they
+ * allocate more than their budget:
+ * <pre>
+ *   &#64;AllocationBudget(bytes = 16 * 1024)
+ *   public void testFormatInteger() {
+ *       ...
+ *   }
+ * </pre>
+ *
+ * <p>When {@code hy.test.leaks} is true, each test is also checked for
+ * leaked file descriptors, threads and temporary files by {@link
+ * LeakChecker}, whether it passes or not. Tests that don't extend this class
+ * are only checked when they're run by {@link InstrumentedTestRunner}.
+ */
+public abstract class InstrumentedTestCase extends TestCase {
+
+    public InstrumentedTestCase() {
+    }
+
+    public InstrumentedTestCase(String name) {
+        super(name);
+    }
+
+    @Override public void runBare() throws Throwable {
+        LeakChecker.Snapshot resources = LeakChecker.isEnabled() ? LeakChecker.snapshot() : null;
+        long wallNanos = System.nanoTime();
+        long cpuNanos = ThreadStats.cpuTimeNanos();
+        long allocatedBytes = ThreadStats.allocatedBytes();
+        long gcCount = GcStats.count();
+        long gcNanos = GcStats.timeNanos();
+        Throwable thrown = null;
+        try {
+            super.runBare();
+        } catch (Throwable t) {
+            thrown = t;
+            throw t;
+        } finally {
+            record(new TimingDatabase.Sample(TimingDatabase.getRun(), System.currentTimeMillis(),
+                    TimingListener.nameOf(this),
+                    System.nanoTime() - wallNanos,
+                    ThreadStats.delta(cpuNanos, ThreadStats.cpuTimeNanos()),
+                    ThreadStats.delta(allocatedBytes, ThreadStats.allocatedBytes()),
+                    ThreadStats.delta(gcCount, GcStats.count()),
+                    ThreadStats.delta(gcNanos, GcStats.timeNanos())));
+            if (resources != null) {
+                checkLeaks(resources, thrown);
+            }
+        }
+    }
+
+    /**
+     * Checks this test for leaks even if it failed. The leaks are reported
+     * either way, but a test that already threw keeps its own throwable rather
+     * than the leak failure.
+     */
+    private void checkLeaks(LeakChecker.Snapshot resources, Throwable thrown) {
+        try {
+            LeakChecker.check(TimingListener.nameOf(this), resources);
+        } catch (AssertionFailedError e) {
+            if (thrown == null) {
+                throw e;
+            }
+        }
+    }
+
+    @Override protected void runTest() throws Throwable {
+        AllocationBudget budget = getAllocationBudget();
+        long allocatedBefore = ThreadStats.allocatedBytes();
+        super.runTest();
+        long allocated = ThreadStats.delta(allocatedBefore, ThreadStats.allocatedBytes());
+        if (budget != null && allocated > budget.bytes()) {
+            fail(getName() + " allocated " + allocated + " bytes, more than its budget of "
+                    + budget.bytes());
+        }
+    }
+
+    private AllocationBudget getAllocationBudget() {
+        try {
+            Method method = getClass().getMethod(getName());
+            return method.getAnnotation(AllocationBudget.class);
+        } catch (NoSuchMethodException e) {
+            return null; // runTest() will report this
+        }
+    }
+
+    private static void record(TimingDatabase.Sample sample) {
+        if (System.getProperty(TimingDatabase.FILE_KEY) == null) {
+            return;
+        }
+        try {
+            TimingDatabase.getDefault().append(sample);
+        } catch (IOException e) {
+            System.err.println("Failed to record timing of " + sample.test + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.Test;
+import junit.framework.TestListener;
+import junit.framework.TestResult;
+import junit.framework.TestSuite;
+
+import org.apache.harmony.testframework.LeakChecker;
+import org.apache.harmony.testframework.LeakListener;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Runs test classes with the measurements of {@link InstrumentedTestCase}
+ * applied to every test, whatever its superclass: a {@link TimingListener}
+ * when {@code hy.test.timings} names a database, and a {@link LeakListener}
+ * when {@code hy.test.leaks} is true.
+ * <pre>
+ *   java -Dhy.test.leaks=true org.apache.harmony.testframework.perf.InstrumentedTestRunner \
+ *       tests.api.java.util.TreeMapTest ...
+ * </pre>
+ * Each failure and error is printed as it happens, and the process exits with
+ * status 1 if there were any.
+ */
+public final class InstrumentedTestRunner {
+
+    private InstrumentedTestRunner() {}
+
+    /**
+     * Returns a result that measures the tests run with it as system
+     * properties ask.
+     */
+    public static TestResult createTestResult() {
+        TestResult result = new TestResult();
+        if (System.getProperty(TimingDatabase.FILE_KEY) != null) {
+            result.addListener(new TimingListener());
+        }
+        if (LeakChecker.isEnabled()) {
+            result.addListener(new LeakListener(result));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tests of {@code testClass}: those of its static {@code
+     * suite()} method if it has one, or else its test methods.
+     */
+    static Test testsOf(Class<?> testClass) throws Exception {
+        try {
+            Method suite = testClass.getMethod("suite");
+            if (Modifier.isStatic(suite.getModifiers())) {
+                return (Test) suite.invoke(null);
+            }
+        } catch (NoSuchMethodException e) {
+        }
+        return new TestSuite(testClass);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: InstrumentedTestRunner <test class>...");
+            System.exit(2);
+        }
+        TestSuite suite = new TestSuite();
+        for (String name : args) {
+            suite.addTest(testsOf(Class.forName(name)));
+        }
+        TestResult result = createTestResult();
+        result.addListener(new TestListener() {
+            public void addError(Test test, Throwable t) {
+                System.out.println("error " + TimingListener.nameOf(test));
+                t.printStackTrace(System.out);
+            }
+
+            public void addFailure(Test test, AssertionFailedError t) {
+                System.out.println("failure " + TimingListener.nameOf(test));
+                t.printStackTrace(System.out);
+            }
+
+            public void endTest(Test test) {}
+
+            public void startTest(Test test) {}
+        });
+        suite.run(result);
+        System.out.println(result.runCount() + " tests, " + result.failureCount()
+                + " failures, " + result.errorCount() + " errors");
+        System.exit(result.wasSuccessful() ? 0 : 1);
+    }
+}
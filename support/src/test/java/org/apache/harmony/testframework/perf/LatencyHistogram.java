@@ -0,0 +1,136 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.util.Locale;
+
+/**
+ * The distribution of the latencies of single operations, unlike {@link
+ * BenchmarkResult}, whose samples are means over many operations. Latencies
+ * are counted in buckets whose width is 1/16 of their lower bound, so
+ * percentiles are within about 6% and recording millions of operations needs
+ * no more memory than recording a few. The maximum is kept exactly.
+ *
+ * <pre>
+ *   LatencyHistogram latencies = new LatencyHistogram(name);
+ *   for (Integer key : keys) {
+ *       long start = System.nanoTime();
+ *       map.get(key);
+ *       latencies.record(System.nanoTime() - start);
+ *   }
+ * </pre>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** enough buckets for any non-negative long */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records an operation that took {@code nanos}. Negative times, which a
+     * clock that isn't monotonic can produce, count as zero.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * Returns the nearest-rank {@code percent}th percentile, rounded up to
+     * the top of its bucket but no higher than the maximum.
+     */
+    public long getPercentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestInBucket(i));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns this distribution as a line for run-harmony-benchmarks, like
+     * {@code benchmark Foo#bar 123.0 ns/op p99=... p999=... max=... mean=... count=...},
+     * whose score is the median.
+     */
+    @Override public String toString() {
+        return String.format(Locale.US,
+                "benchmark %s %d.0 ns/op p99=%d p999=%d max=%d mean=%.1f count=%d",
+                name, getMedian(), getPercentile(99), getPercentile(99.9), max, getMean(),
+                count);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads the CPU time and allocated bytes of the current thread. The tests run
+ * on both host VMs and on Dalvik, neither of which is guaranteed to expose
+ * {@code java.lang.management}, so everything here is looked up reflectively.
+ * Each method returns -1 if the running VM doesn't support the measurement.
+ */
+public final class ThreadStats {
+
+    private static final Object threadBean;
+    private static final Method currentThreadCpuTime;
+    private static final Method threadAllocatedBytes;
+
+    private static final Method vmDebugThreadCpuTime;
+    private static final Method vmDebugAllocCount;
+    private static final int vmDebugThreadAllocatedBytes;
+
+    static {
+        Object bean = null;
+        Method cpuTime = null;
+        Method allocatedBytes = null;
+        try {
+            bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Class<?> beanClass = Class.forName("java.lang.management.ThreadMXBean");
+            if ((Boolean) beanClass.getMethod("isCurrentThreadCpuTimeSupported").invoke(bean)) {
+                cpuTime = beanClass.getMethod("getCurrentThreadCpuTime");
+            }
+            Class<?> sunBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (sunBeanClass.isInstance(bean)) {
+                sunBeanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class)
+                        .invoke(bean, true);
+                allocatedBytes = sunBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (Throwable unsupported) {
+        }
+        threadBean = bean;
+        currentThreadCpuTime = cpuTime;
+        threadAllocatedBytes = allocatedBytes;
+
+        Method vmCpuTime = null;
+        Method vmAllocCount = null;
+        int vmThreadAllocatedBytes = 0;
+        try {
+            Class<?> vmDebug = Class.forName("dalvik.system.VMDebug");
+            vmCpuTime = vmDebug.getMethod("threadCpuTimeNanos");
+            vmAllocCount = vmDebug.getMethod("getAllocCount", int.class);
+            vmThreadAllocatedBytes = vmDebug.getField("KIND_THREAD_ALLOCATED_BYTES").getInt(null);
+            vmDebug.getMethod("startAllocCounting").invoke(null);
+        } catch (Throwable unsupported) {
+            vmAllocCount = null;
+        }
+        vmDebugThreadCpuTime = vmCpuTime;
+        vmDebugAllocCount = vmAllocCount;
+        vmDebugThreadAllocatedBytes = vmThreadAllocatedBytes;
+    }
+
+    private ThreadStats() {}
+
+    /**
+     * Returns the CPU time consumed by the current thread, in nanoseconds.
+     */
+    public static long cpuTimeNanos() {
+        try {
+            if (currentThreadCpuTime != null) {
+                return (Long) currentThreadCpuTime.invoke(threadBean);
+            }
+            if (vmDebugThreadCpuTime != null) {
+                return (Long) vmDebugThreadCpuTime.invoke(null);
+            }
+        } catch (Exception unsupported) {
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread since some
+     * arbitrary point; only the difference between two calls is meaningful.
+     */
+    public static long allocatedBytes() {
+        try {
+            if (threadAllocatedBytes != null) {
+                return (Long) threadAllocatedBytes.invoke(threadBean,
+                        Thread.currentThread().getId());
+            }
+            if (vmDebugAllocCount != null) {
+                return (Integer) vmDebugAllocCount.invoke(null, vmDebugThreadAllocatedBytes);
+            }
+        } catch (Exception unsupported) {
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code after - before}, or -1 if either measurement is missing.
+     */
+    public static long delta(long before, long after) {
+        return before == -1 || after == -1 ? -1 : after - before;
+    }
+}
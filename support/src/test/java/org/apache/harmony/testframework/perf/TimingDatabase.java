@@ -0,0 +1,188 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only file of per-test measurements. Each line holds one sample as
+ * tab-separated fields:
+ * <pre>
+ *   run  timestamp  test  wallNanos  cpuNanos  allocatedBytes  gcCount  gcNanos
+ * </pre>
+ * Missing measurements are recorded as -1. Lines written before the GC fields
+ * were added, which end at {@code allocatedBytes}, are read with unknown GCs.
+ * Samples are appended with a single write so that several test VMs, such as
+ * the shards started by run-harmony-tests, may share one file.
+ *
+ * <p>The file is named by the {@code hy.test.timings} system property, and the
+ * run by {@code hy.test.run}.
+ */
+public final class TimingDatabase {
+
+    /**
+     * Key to a system property naming the database file.
+     */
+    public static final String FILE_KEY = "hy.test.timings";
+
+    /**
+     * Key to a system property naming the current run. Defaults to the time
+     * this class was loaded.
+     */
+    public static final String RUN_KEY = "hy.test.run";
+
+    private static final String DEFAULT_RUN
+            = System.getProperty(RUN_KEY, Long.toString(System.currentTimeMillis()));
+
+    private final File file;
+
+    public TimingDatabase(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the database named by the {@code hy.test.timings} system
+     * property, or one in the temporary directory if that is unset.
+     */
+    public static TimingDatabase getDefault() {
+        String path = System.getProperty(FILE_KEY);
+        if (path == null) {
+            path = System.getProperty("java.io.tmpdir") + File.separator + "harmony-test-timings";
+        }
+        return new TimingDatabase(new File(path));
+    }
+
+    /**
+     * Returns the name of the current run.
+     */
+    public static String getRun() {
+        return DEFAULT_RUN;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends a sample for {@code test} to the current run.
+     */
+    public void append(String test, long wallNanos, long cpuNanos, long allocatedBytes)
+            throws IOException {
+        append(new Sample(DEFAULT_RUN, System.currentTimeMillis(), test,
+                wallNanos, cpuNanos, allocatedBytes));
+    }
+
+    public synchronized void append(Sample sample) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        OutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write((sample.toString() + "\n").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns all samples in the order they were appended. Malformed lines,
+     * such as one truncated by a killed VM, are skipped.
+     */
+    public synchronized List<Sample> read() throws IOException {
+        List<Sample> result = new ArrayList<Sample>();
+        if (!file.exists()) {
+            return result;
+        }
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Sample sample = Sample.parse(line);
+                if (sample != null) {
+                    result.add(sample);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return result;
+    }
+
+    /**
+     * One measurement of one test.
+     */
+    public static final class Sample {
+        public final String run;
+        public final long timestamp;
+        public final String test;
+        public final long wallNanos;
+        public final long cpuNanos;
+        public final long allocatedBytes;
+        public final long gcCount;
+        public final long gcNanos;
+
+        public Sample(String run, long timestamp, String test,
+                long wallNanos, long cpuNanos, long allocatedBytes) {
+            this(run, timestamp, test, wallNanos, cpuNanos, allocatedBytes, -1, -1);
+        }
+
+        public Sample(String run, long timestamp, String test, long wallNanos,
+                long cpuNanos, long allocatedBytes, long gcCount, long gcNanos) {
+            this.run = run;
+            this.timestamp = timestamp;
+            this.test = test;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcNanos = gcNanos;
+        }
+
+        static Sample parse(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 6 && fields.length != 8) {
+                return null;
+            }
+            try {
+                return new Sample(fields[0], Long.parseLong(fields[1]), fields[2],
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4]),
+                        Long.parseLong(fields[5]),
+                        fields.length == 8 ? Long.parseLong(fields[6]) : -1,
+                        fields.length == 8 ? Long.parseLong(fields[7]) : -1);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override public String toString() {
+            return run + "\t" + timestamp + "\t" + test + "\t"
+                    + wallNanos + "\t" + cpuNanos + "\t" + allocatedBytes + "\t"
+                    + gcCount + "\t" + gcNanos;
+        }
+    }
+}
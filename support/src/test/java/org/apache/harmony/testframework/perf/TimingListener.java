@@ -0,0 +1,105 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestListener;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records the wall time, CPU time, allocated bytes and garbage collections of
+ * each test method to a {@link TimingDatabase}. To use it from plain JUnit,
+ * register it with the {@code TestResult} before running:
+ * <pre>
+ *   TestResult result = new TestResult();
+ *   result.addListener(new TimingListener());
+ *   suite.run(result);
+ * </pre>
+ * CPU time and allocations are those of the thread that runs the test, and
+ * garbage collections are those of the whole VM. Tests that extend {@link
+ * InstrumentedTestCase} record themselves and are skipped.
+ */
+public class TimingListener implements TestListener {
+
+    private final TimingDatabase database;
+    private final Map<Test, long[]> started = new IdentityHashMap<Test, long[]>();
+
+    public TimingListener() {
+        this(TimingDatabase.getDefault());
+    }
+
+    public TimingListener(TimingDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Returns the name recorded for {@code test}, like
+     * {@code tests.api.java.util.TreeMapTest#test_clear}.
+     */
+    public static String nameOf(Test test) {
+        if (test instanceof TestCase) {
+            return test.getClass().getName() + "#" + ((TestCase) test).getName();
+        }
+        return test.toString();
+    }
+
+    public synchronized void startTest(Test test) {
+        if (test instanceof InstrumentedTestCase) {
+            return;
+        }
+        started.put(test, new long[] {
+                System.nanoTime(), ThreadStats.cpuTimeNanos(), ThreadStats.allocatedBytes(),
+                GcStats.count(), GcStats.timeNanos() });
+    }
+
+    public void endTest(Test test) {
+        long wallNanos = System.nanoTime();
+        long cpuNanos = ThreadStats.cpuTimeNanos();
+        long allocatedBytes = ThreadStats.allocatedBytes();
+        long gcCount = GcStats.count();
+        long gcNanos = GcStats.timeNanos();
+
+        long[] start;
+        synchronized (this) {
+            start = started.remove(test);
+        }
+        if (start == null) {
+            return;
+        }
+
+        try {
+            database.append(new TimingDatabase.Sample(TimingDatabase.getRun(),
+                    System.currentTimeMillis(), nameOf(test), wallNanos - start[0],
+                    ThreadStats.delta(start[1], cpuNanos),
+                    ThreadStats.delta(start[2], allocatedBytes),
+                    ThreadStats.delta(start[3], gcCount),
+                    ThreadStats.delta(start[4], gcNanos)));
+        } catch (IOException e) {
+            System.err.println("Failed to record timing of " + nameOf(test) + ": " + e);
+        }
+    }
+
+    public void addError(Test test, Throwable t) {}
+
+    public void addFailure(Test test, AssertionFailedError t) {}
+}
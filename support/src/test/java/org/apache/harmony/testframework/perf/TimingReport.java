@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.perf;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports test methods whose wall time or allocations regressed. The most
+ * recent run is the one of the last sample in the database. For each test
+ * that has samples in it, their median is compared against the median of the
+ * test's per-run medians over its previous {@code --runs} runs. Tests without
+ * samples in the most recent run, like deleted or skipped ones, aren't
+ * reported.
+ * Tests that slowed down by more than {@code --threshold} percent, and by at
+ * least {@code --min-millis}, are reported and make the process exit with
+ * status 1. So are tests whose allocations grew by more than the threshold and
+ * by at least {@code --min-bytes}; samples without allocation counts, like
+ * those taken from vogar's reports, are ignored for that comparison.
+ *
+ * <pre>
+ *   java org.apache.harmony.testframework.perf.TimingReport \
+ *       [--runs 10] [--threshold 50] [--min-millis 10] [--min-bytes 65536] [timings-file]
+ * </pre>
+ */
+public final class TimingReport {
+
+    private int runs = 10;
+    private double thresholdPercent = 50;
+    private long minNanos = 10 * 1000 * 1000L;
+    private long minBytes = 64 * 1024L;
+
+    public TimingReport setRuns(int runs) {
+        this.runs = runs;
+        return this;
+    }
+
+    public TimingReport setThresholdPercent(double thresholdPercent) {
+        this.thresholdPercent = thresholdPercent;
+        return this;
+    }
+
+    public TimingReport setMinMillis(long minMillis) {
+        this.minNanos = minMillis * 1000 * 1000L;
+        return this;
+    }
+
+    public TimingReport setMinBytes(long minBytes) {
+        this.minBytes = minBytes;
+        return this;
+    }
+
+    /**
+     * Prints the regressed tests in {@code samples} to {@code out} and returns
+     * how many regressions there were.
+     */
+    public int report(List<TimingDatabase.Sample> samples, PrintStream out) {
+        // test -> run -> samples, both in order of first appearance
+        Map<String, Map<String, List<TimingDatabase.Sample>>> byTest
+                = new LinkedHashMap<String, Map<String, List<TimingDatabase.Sample>>>();
+        for (TimingDatabase.Sample sample : samples) {
+            Map<String, List<TimingDatabase.Sample>> byRun = byTest.get(sample.test);
+            if (byRun == null) {
+                byRun = new LinkedHashMap<String, List<TimingDatabase.Sample>>();
+                byTest.put(sample.test, byRun);
+            }
+            List<TimingDatabase.Sample> runSamples = byRun.get(sample.run);
+            if (runSamples == null) {
+                runSamples = new ArrayList<TimingDatabase.Sample>();
+                byRun.put(sample.run, runSamples);
+            }
+            runSamples.add(sample);
+        }
+
+        Metric wallTime = new Metric("ms", 1e6, minNanos) {
+            @Override long get(TimingDatabase.Sample sample) {
+                return sample.wallNanos;
+            }
+        };
+        Metric allocatedBytes = new Metric("KB", 1024, minBytes) {
+            @Override long get(TimingDatabase.Sample sample) {
+                return sample.allocatedBytes;
+            }
+        };
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        String latestRun = samples.get(samples.size() - 1).run;
+        return report(byTest, latestRun, wallTime, out)
+                + report(byTest, latestRun, allocatedBytes, out);
+    }
+
+    private int report(Map<String, Map<String, List<TimingDatabase.Sample>>> byTest,
+            String latestRun, Metric metric, PrintStream out) {
+        int regressions = 0;
+        for (Map.Entry<String, Map<String, List<TimingDatabase.Sample>>> entry
+                : byTest.entrySet()) {
+            Long latest = null;
+            List<Long> previous = new ArrayList<Long>();
+            for (Map.Entry<String, List<TimingDatabase.Sample>> run
+                    : entry.getValue().entrySet()) {
+                List<Long> values = new ArrayList<Long>();
+                for (TimingDatabase.Sample sample : run.getValue()) {
+                    if (metric.get(sample) != -1) {
+                        values.add(metric.get(sample));
+                    }
+                }
+                if (values.isEmpty()) {
+                    continue;
+                } else if (run.getKey().equals(latestRun)) {
+                    latest = median(values);
+                } else {
+                    previous.add(median(values));
+                }
+            }
+            if (latest == null || previous.isEmpty()) {
+                continue;
+            }
+
+            long baseline = median(previous.subList(
+                    Math.max(0, previous.size() - runs), previous.size()));
+
+            if (latest - baseline >= metric.min
+                    && latest > baseline * (1 + thresholdPercent / 100)) {
+                if (regressions++ == 0) {
+                    out.printf("%10s %10s %8s  %s%n", "BASE(" + metric.unit + ")",
+                            "LAST(" + metric.unit + ")", "CHANGE", "TEST");
+                }
+                out.printf("%10.1f %10.1f %+7.0f%%  %s%n",
+                        baseline / metric.scale, latest / metric.scale,
+                        100.0 * (latest - baseline) / Math.max(1, baseline), entry.getKey());
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * A measurement of each sample, compared across runs.
+     */
+    private static abstract class Metric {
+        final String unit;
+        final double scale;
+        final long min;
+
+        Metric(String unit, double scale, long min) {
+            this.unit = unit;
+            this.scale = scale;
+            this.min = min;
+        }
+
+        /** Returns the measurement of {@code sample}, or -1 if it's unknown. */
+        abstract long get(TimingDatabase.Sample sample);
+    }
+
+    private static long median(List<Long> values) {
+        Long[] sorted = values.toArray(new Long[values.size()]);
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    public static void main(String[] args) throws Exception {
+        TimingReport report = new TimingReport();
+        TimingDatabase database = TimingDatabase.getDefault();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--runs")) {
+                report.setRuns(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--threshold")) {
+                report.setThresholdPercent(Double.parseDouble(args[++i]));
+            } else if (args[i].equals("--min-millis")) {
+                report.setMinMillis(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--min-bytes")) {
+                report.setMinBytes(Long.parseLong(args[++i]));
+            } else if (args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } else {
+                database = new TimingDatabase(new File(args[i]));
+            }
+        }
+
+        int regressions = report.report(database.read(), System.out);
+        System.out.println(regressions + " regression(s) in " + database.getFile());
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+}
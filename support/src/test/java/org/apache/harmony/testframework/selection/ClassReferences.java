@@ -0,0 +1,209 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.selection;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the names of the classes a compiled class refers to from its constant
+ * pool. This covers everything the class calls, extends, implements,
+ * instantiates, catches or statically imports, plus the types that appear in
+ * its field and method signatures. Compile-time constants are inlined by javac
+ * and so leave no reference behind.
+ *
+ * <p>All names are top-level binary names like {@code java.util.TreeMap}:
+ * references to nested classes are reported as references to their outermost
+ * class, since that's the unit that a source file change affects.
+ */
+final class ClassReferences {
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_InvokeDynamic = 18;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    final String name;
+    final Set<String> references = new TreeSet<String>();
+
+    /** the binary name of the class itself, like {@code java.util.Map$Entry} */
+    String binaryName;
+
+    /** the binary name of its superclass, or null for java.lang.Object */
+    String superName;
+
+    /** true if the class is public and neither abstract nor an interface */
+    boolean concrete;
+
+    /** true if the class has a JUnit {@code public static Test suite()} method */
+    boolean hasSuiteMethod;
+
+    private ClassReferences(String name) {
+        this.name = name;
+    }
+
+    static ClassReferences read(InputStream classFile) throws IOException {
+        DataInputStream in = new DataInputStream(classFile);
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNameIndices = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case CONSTANT_Utf8:
+                utf8[i] = in.readUTF();
+                break;
+            case CONSTANT_Class:
+                classNameIndices[i] = in.readUnsignedShort();
+                break;
+            case CONSTANT_String:
+            case CONSTANT_MethodType:
+                in.readUnsignedShort();
+                break;
+            case CONSTANT_MethodHandle:
+                in.readUnsignedByte();
+                in.readUnsignedShort();
+                break;
+            case CONSTANT_Integer:
+            case CONSTANT_Float:
+            case CONSTANT_Fieldref:
+            case CONSTANT_Methodref:
+            case CONSTANT_InterfaceMethodref:
+            case CONSTANT_NameAndType:
+            case CONSTANT_InvokeDynamic:
+                in.readInt();
+                break;
+            case CONSTANT_Long:
+            case CONSTANT_Double:
+                in.readLong();
+                i++; // 8-byte constants take two slots
+                break;
+            default:
+                throw new IOException("Unexpected constant pool tag " + tag);
+            }
+        }
+
+        int accessFlags = in.readUnsignedShort();
+        int thisClass = in.readUnsignedShort();
+        int superClass = in.readUnsignedShort();
+        ClassReferences result = new ClassReferences(topLevel(utf8[classNameIndices[thisClass]]));
+        result.binaryName = utf8[classNameIndices[thisClass]].replace('/', '.');
+        result.superName = superClass == 0
+                ? null : utf8[classNameIndices[superClass]].replace('/', '.');
+        result.concrete = (accessFlags & ACC_PUBLIC) != 0
+                && (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+
+        in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+        skipMembers(in); // fields
+        for (int methods = in.readUnsignedShort(); methods > 0; methods--) {
+            int methodFlags = in.readUnsignedShort();
+            String methodName = utf8[in.readUnsignedShort()];
+            String descriptor = utf8[in.readUnsignedShort()];
+            skipAttributes(in);
+            if ((methodFlags & (ACC_PUBLIC | ACC_STATIC)) == (ACC_PUBLIC | ACC_STATIC)
+                    && methodName.equals("suite")
+                    && descriptor.equals("()Ljunit/framework/Test;")) {
+                result.hasSuiteMethod = true;
+            }
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (classNameIndices[i] != 0) {
+                String className = utf8[classNameIndices[i]];
+                if (className.startsWith("[")) {
+                    result.addDescriptor(className);
+                } else {
+                    result.references.add(topLevel(className));
+                }
+            } else if (utf8[i] != null) {
+                result.addDescriptor(utf8[i]);
+            }
+        }
+        result.references.remove(result.name);
+        return result;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        for (int members = in.readUnsignedShort(); members > 0; members--) {
+            in.skipBytes(6); // access flags, name and descriptor
+            skipAttributes(in);
+        }
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        for (int attributes = in.readUnsignedShort(); attributes > 0; attributes--) {
+            in.readUnsignedShort(); // name
+            int length = in.readInt();
+            if (in.skipBytes(length) != length) {
+                throw new IOException("Truncated class file");
+            }
+        }
+    }
+
+    /**
+     * Adds each {@code Lpackage/Name;} type in a field, method or generic
+     * signature.
+     */
+    private void addDescriptor(String descriptor) {
+        int start = descriptor.indexOf('L');
+        while (start != -1) {
+            int end = start + 1;
+            while (end < descriptor.length()
+                    && descriptor.charAt(end) != ';' && descriptor.charAt(end) != '<') {
+                end++;
+            }
+            if (end < descriptor.length() && end - start > 1
+                    && descriptor.substring(start + 1, end).indexOf('/') != -1) {
+                references.add(topLevel(descriptor.substring(start + 1, end)));
+            }
+            start = descriptor.indexOf('L', end);
+        }
+    }
+
+    private static String topLevel(String internalName) {
+        int dollar = internalName.indexOf('$');
+        if (dollar != -1) {
+            internalName = internalName.substring(0, dollar);
+        }
+        return internalName.replace('/', '.');
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.selection;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Selects the test packages affected by a set of changed files. Each changed
+ * Java source is mapped to the class it declares; the test packages to run are
+ * those containing a compiled test class that refers to that class, directly
+ * or through other test classes. Changed test sources select their own
+ * package.
+ *
+ * <p>Changes to the support module, which every test depends on, and changes
+ * to files that can't be mapped to a class select the full suite. In that
+ * case the only line printed is {@code all}. Test classes that live in a
+ * support package outside the support module, like luni's tests of {@code
+ * org.apache.harmony.testframework.perf}, are treated as tests.
+ *
+ * <pre>
+ *   java org.apache.harmony.testframework.selection.TestSelector \
+ *       --jar classes.jar [--root dir] changed-file...
+ * </pre>
+ * Changed files are read from standard input if none are given.
+ *
+ * <p>With {@code --list-tests} instead of changed files, it prints the name of
+ * every public, concrete, top-level class in the jars that extends JUnit's
+ * TestCase or has a static {@code suite()} method, one per line.
+ */
+public final class TestSelector {
+
+    public static final String ALL = "all";
+
+    private static final Pattern PACKAGE_DECLARATION
+            = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private static final Pattern SOURCE_ROOT = Pattern.compile(
+            ".*/src/(?:main|test)/(?:java|support/java|api/common|api/unix"
+            + "|impl/common|impl/unix|impl/java)/(.*)\\.java");
+
+    private static final Pattern RESOURCE_ROOT = Pattern.compile(
+            ".*/src/test/resources/(?:serialization/)?(.*)/[^/]*");
+
+    private static final String TEST_CASE = "junit.framework.TestCase";
+
+    private static final String[] SUPPORT_PACKAGES = {
+            "tests.support", "tests.util", "tests.resources",
+            "org.apache.harmony.testframework",
+    };
+
+    /** test class -> classes it refers to */
+    private final Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+
+    /** class -> test classes that refer to it */
+    private final Map<String, Set<String>> referrers = new HashMap<String, Set<String>>();
+
+    /** class -> its superclass, by binary name */
+    private final Map<String, String> superclasses = new HashMap<String, String>();
+
+    /** the public, concrete, top-level classes */
+    private final Set<String> concreteClasses = new HashSet<String>();
+
+    /** the classes with a static suite() method */
+    private final Set<String> suiteClasses = new HashSet<String>();
+
+    private final File root;
+
+    public TestSelector(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Indexes the class references of every class in {@code jar}.
+     */
+    public void addJar(File jar) throws IOException {
+        ZipFile zip = new ZipFile(jar);
+        try {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                ZipEntry entry = e.nextElement();
+                if (!entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                InputStream in = zip.getInputStream(entry);
+                try {
+                    add(ClassReferences.read(in));
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void add(ClassReferences classReferences) {
+        superclasses.put(classReferences.binaryName, classReferences.superName);
+        if (classReferences.concrete && classReferences.binaryName.equals(classReferences.name)) {
+            concreteClasses.add(classReferences.name);
+        }
+        if (classReferences.hasSuiteMethod) {
+            suiteClasses.add(classReferences.binaryName);
+        }
+
+        Set<String> existing = references.get(classReferences.name);
+        if (existing == null) {
+            existing = new HashSet<String>();
+            references.put(classReferences.name, existing);
+        }
+        existing.addAll(classReferences.references);
+
+        for (String referenced : classReferences.references) {
+            Set<String> classes = referrers.get(referenced);
+            if (classes == null) {
+                classes = new HashSet<String>();
+                referrers.put(referenced, classes);
+            }
+            classes.add(classReferences.name);
+        }
+    }
+
+    /**
+     * Returns the test packages to run for {@code changedFiles}, or a set
+     * containing only {@link #ALL} if the full suite should be run.
+     */
+    public Set<String> select(List<String> changedFiles) throws IOException {
+        Set<String> affected = new HashSet<String>();
+        Set<String> packages = new TreeSet<String>();
+
+        for (String path : changedFiles) {
+            if (path.startsWith("support/")) {
+                return allTests();
+            }
+
+            if (path.endsWith(".java")) {
+                String className = classDeclaredBy(path);
+                if (className == null || isSupportClass(className)) {
+                    return allTests();
+                }
+                affected.add(className);
+                continue;
+            }
+
+            Matcher resource = RESOURCE_ROOT.matcher(path);
+            if (resource.matches()) {
+                String resourcePackage = resource.group(1).replace('/', '.');
+                if (containsTests(resourcePackage)) {
+                    packages.add(resourcePackage);
+                    continue;
+                }
+            }
+            return allTests();
+        }
+
+        // Walk from the changed classes to every test class that depends on them.
+        LinkedList<String> queue = new LinkedList<String>(affected);
+        while (!queue.isEmpty()) {
+            Set<String> classes = referrers.get(queue.removeFirst());
+            if (classes == null) {
+                continue;
+            }
+            for (String referrer : classes) {
+                if (affected.add(referrer)) {
+                    queue.add(referrer);
+                }
+            }
+        }
+
+        for (String className : affected) {
+            if (references.containsKey(className) && !isSupportClass(className)) {
+                packages.add(packageOf(className));
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Returns the public, concrete, top-level classes that have a static
+     * suite() method or extend JUnit's TestCase, directly or through other
+     * classes in the indexed jars.
+     */
+    public Set<String> testClasses() {
+        Set<String> result = new TreeSet<String>();
+        for (String className : concreteClasses) {
+            if (isTestClass(className)) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
+    private boolean isTestClass(String className) {
+        if (!concreteClasses.contains(className)) {
+            return false;
+        }
+        if (suiteClasses.contains(className)) {
+            return true;
+        }
+        String superclass = superclasses.get(className);
+        while (superclass != null && !superclass.equals(TEST_CASE)) {
+            superclass = superclasses.get(superclass);
+        }
+        return superclass != null;
+    }
+
+    private Set<String> allTests() {
+        Set<String> result = new TreeSet<String>();
+        result.add(ALL);
+        return result;
+    }
+
+    /**
+     * Returns the class declared by the source file at {@code path}, read from
+     * its package declaration if it still exists and from its location in a
+     * source tree otherwise.
+     */
+    private String classDeclaredBy(String path) throws IOException {
+        String simpleName = new File(path).getName();
+        simpleName = simpleName.substring(0, simpleName.length() - ".java".length());
+
+        File file = new File(path);
+        if (!file.isAbsolute() && !file.exists()) {
+            file = new File(root, path);
+        }
+        if (file.exists()) {
+            Matcher matcher = PACKAGE_DECLARATION.matcher(readFully(file));
+            return matcher.find() ? matcher.group(1) + "." + simpleName : simpleName;
+        }
+
+        Matcher matcher = SOURCE_ROOT.matcher("/" + path);
+        return matcher.matches() ? matcher.group(1).replace('/', '.') : null;
+    }
+
+    private boolean containsTests(String packageName) {
+        for (String className : references.keySet()) {
+            if (packageOf(className).equals(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if {@code className} is in a support package and isn't a
+     * test class itself.
+     */
+    private boolean isSupportClass(String className) {
+        return isSupport(className) && !isTestClass(className);
+    }
+
+    private static boolean isSupport(String className) {
+        for (String supportPackage : SUPPORT_PACKAGES) {
+            if (className.startsWith(supportPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot == -1 ? "" : className.substring(0, dot);
+    }
+
+    private static String readFully(File file) throws IOException {
+        StringBuilder result = new StringBuilder();
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                result.append(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return result.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<File> jars = new ArrayList<File>();
+        File root = new File(".");
+        List<String> changedFiles = new ArrayList<String>();
+        boolean listTests = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--list-tests")) {
+                listTests = true;
+            } else if (args[i].equals("--jar")) {
+                jars.add(new File(args[++i]));
+            } else if (args[i].equals("--root")) {
+                root = new File(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } else {
+                changedFiles.add(args[i]);
+            }
+        }
+
+        TestSelector selector = new TestSelector(root);
+        for (File jar : jars) {
+            selector.addJar(jar);
+        }
+        if (listTests) {
+            for (String testClass : selector.testClasses()) {
+                System.out.println(testClass);
+            }
+            return;
+        }
+
+        if (changedFiles.isEmpty()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().length() > 0) {
+                    changedFiles.add(line.trim());
+                }
+            }
+        }
+
+        for (String testPackage : selector.select(changedFiles)) {
+            System.out.println(testPackage);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.testframework.serialization;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A single file holding every golden file, so that tests can read them
+ * without opening hundreds of small resources. The archive is memory-mapped
+ * and each golden file is served straight from the mapping.
+ *
+ * <p>The archive starts with an index of resource names, like {@code
+ * serialization/java/util/Collections_CheckedList.golden.ser}, and the offset
+ * and length of each one's bytes. Names are in standard UTF-8, preceded by
+ * their length in bytes:
+ * <pre>
+ *   int magic, int count,
+ *   count * { short nameLength, byte[nameLength] name, int offset, int length }, data
+ * </pre>
+ *
+ * <p>Tests use the archive named by the {@code hy.test.golden.archive} system
+ * property. Resources it doesn't contain, and all resources when the property
+ * is unset, are loaded from the classpath as before. To pack the golden files
+ * of some modules:
+ * <pre>
+ *   java org.apache.harmony.testframework.serialization.GoldenArchive \
+ *       golden.archive luni/src/test/resources security/src/test/resources ...
+ * </pre>
+ */
+public final class GoldenArchive {
+
+    /**
+     * Key to a system property naming the archive file.
+     */
+    public static final String ARCHIVE_KEY = "hy.test.golden.archive";
+
+    private static final int MAGIC = 0x48594741; // "HYGA"
+
+    private static final String SERIALIZATION_DIR = "serialization";
+
+    private static GoldenArchive defaultArchive;
+    private static boolean defaultArchiveLoaded;
+
+    private final ByteBuffer data;
+    private final Map<String, int[]> index = new HashMap<String, int[]>();
+
+    private GoldenArchive(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException("Not a golden file archive: " + file);
+            }
+            int count = mapped.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[mapped.getShort() & 0xffff];
+                mapped.get(name);
+                index.put(new String(name, "UTF-8"), new int[] { mapped.getInt(), mapped.getInt() });
+            }
+            this.data = mapped;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the archive named by the {@code hy.test.golden.archive} system
+     * property, or null if there isn't one.
+     */
+    public static synchronized GoldenArchive getDefault() {
+        if (!defaultArchiveLoaded) {
+            defaultArchiveLoaded = true;
+            String path = System.getProperty(ARCHIVE_KEY);
+            if (path != null && new File(path).exists()) {
+                try {
+                    defaultArchive = new GoldenArchive(new File(path));
+                } catch (IOException e) {
+                    System.err.println("Ignoring golden file archive " + path + ": " + e);
+                }
+            }
+        }
+        return defaultArchive;
+    }
+
+    /**
+     * Returns a stream of the resource named {@code name} from the default
+     * archive, or null if there is no default archive or it doesn't contain
+     * that resource.
+     */
+    public static InputStream open(String name) {
+        GoldenArchive archive = getDefault();
+        return archive != null ? archive.getInputStream(name) : null;
+    }
+
+    /**
+     * Returns a stream of the resource named {@code name}, or null if this
+     * archive doesn't contain it.
+     */
+    public InputStream getInputStream(String name) {
+        int[] entry = index.get(name.replace(File.separatorChar, '/'));
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(entry[0]);
+        buffer.limit(entry[0] + entry[1]);
+        return new ByteBufferInputStream(buffer.slice());
+    }
+
+    /**
+     * Writes an archive of every file under the {@code serialization}
+     * directory of each of {@code resourceDirs}. Fails if two of the
+     * directories hold a file of the same name, since the archive could only
+     * hold one of them while the classpath may find either.
+     */
+    public static void write(File archive, File... resourceDirs) throws IOException {
+        Map<String, File> files = new TreeMap<String, File>();
+        for (File resourceDir : resourceDirs) {
+            collect(new File(resourceDir, SERIALIZATION_DIR), SERIALIZATION_DIR, files);
+        }
+
+        // the index size depends on the names only, so offsets can be
+        // computed before anything is written
+        Map<String, byte[]> names = new HashMap<String, byte[]>();
+        int offset = 8;
+        for (String name : files.keySet()) {
+            byte[] bytes = name.getBytes("UTF-8");
+            if (bytes.length > 0xffff) {
+                throw new IOException("Golden file name too long: " + name);
+            }
+            names.put(name, bytes);
+            offset += 2 + bytes.length + 8;
+        }
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(archive)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(files.size());
+            for (Map.Entry<String, File> entry : files.entrySet()) {
+                int length = (int) entry.getValue().length();
+                byte[] name = names.get(entry.getKey());
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(offset);
+                out.writeInt(length);
+                offset += length;
+            }
+            byte[] buffer = new byte[8192];
+            for (File file : files.values()) {
+                InputStream in = new FileInputStream(file);
+                try {
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void collect(File dir, String name, Map<String, File> files)
+            throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String childName = name + "/" + child.getName();
+            if (child.isDirectory()) {
+                collect(child, childName, files);
+            } else {
+                File previous = files.put(childName, child);
+                if (previous != null) {
+                    throw new IOException("Duplicate golden file " + childName + " in "
+                            + previous + " and " + child);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GoldenArchive <archive> <resource dir>...");
+            System.exit(1);
+        }
+        File[] resourceDirs = new File[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            resourceDirs[i - 1] = new File(args[i]);
+        }
+        write(new File(args[0]), resourceDirs);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override public int available() {
+            return buffer.remaining();
+        }
+
+        @Override public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override public int read(byte[] bytes, int offset, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            count = Math.min(count, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override public long skip(long count) {
+            int skipped = (int) Math.min(Math.max(count, 0), buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
@@ -39,10 +39,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Locale;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
+import org.apache.harmony.testframework.perf.ThreadStats;
+
 /**
  * Framework for serialization testing. Subclasses only need to override
  * getData() method and, optionally, assertDeserialized() method. The first one
@@ -59,7 +62,13 @@ import junit.framework.TestCase;
  * serialized objects. This mode should be run on a pure 
  * Implementation classes, which are targeted for compartibility. <br>
  * The location of golden files (in both modes) is controlled via
- * <b>&quot;RESOURCE_DIR&quot; </b> system property.
+ * <b>&quot;RESOURCE_DIR&quot; </b> system property. <br>
+ * A third, <b>benchmark mode </b>, is turned on by setting the test.mode
+ * property to &quot;serial.bench&quot;. In this mode, no testing is performed
+ * but each object returned by getData() is repeatedly written and read back,
+ * and its serialized size, write and read times, and allocations per round
+ * trip are written as a table to a file in the directory named by the
+ * <b>&quot;BENCHMARK_DIR&quot; </b> system property.
  * 
  */
 public abstract class SerializationTest extends TestCase {
@@ -88,6 +97,26 @@ public abstract class SerializationTest extends TestCase {
     private static final String outputPath = System.getProperty(GOLDEN_PATH,
             "src/test/resources/serialization");
 
+    /**
+     * Benchmark mode switch.
+     */
+    public static final String SERIAL_BENCHMARK_MODE = "serial.bench";
+
+    /**
+     * Key to a system property defining the directory that benchmark tables
+     * are written to.
+     */
+    public static final String BENCHMARK_PATH = "BENCHMARK_DIR";
+
+    private static final String benchmarkPath = System.getProperty(BENCHMARK_PATH,
+            "serialization-benchmarks");
+
+    /**
+     * Minimum time in milliseconds to exercise each object before, and
+     * while, measuring it in benchmark mode.
+     */
+    private static final long BENCHMARK_MILLIS = 250;
+
     /**
      * Parameterized c-tor inherited from superclass.
      */
@@ -110,6 +139,8 @@ public abstract class SerializationTest extends TestCase {
 
         if (mode != null && mode.equals(SERIAL_REFERENCE_MODE)) {
             produceGoldenFiles();
+        } else if (mode != null && mode.equals(SERIAL_BENCHMARK_MODE)) {
+            produceBenchmarkTable();
         } else {
             super.runBare();
         }
@@ -189,6 +220,89 @@ public abstract class SerializationTest extends TestCase {
         }
     }
 
+    /**
+     * Working method for benchmark mode. Measures the serialization round
+     * trip of each object returned by {@link #getData() getData()} and writes
+     * one row per object to "<code>BENCHMARK_DIR/testClassName</code>.txt".
+     * The table is also printed to standard output.
+     * 
+     * @throws Exception
+     */
+    protected void produceBenchmarkTable() throws Exception {
+
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, "%-5s %-50s %8s %12s %12s %12s %14s%n",
+                "INDEX", "CLASS", "BYTES", "WRITE(ns)", "READ(ns)",
+                "TRIPS/s", "ALLOC/TRIP"));
+
+        Object[] data = getData();
+        for (int i = 0; i < data.length; i++) {
+            long[] result = benchmarkRoundTrip((Serializable) data[i]);
+            // a trip faster than the timer's resolution has no meaningful rate
+            long tripNanos = result[1] + result[2];
+            table.append(String.format(Locale.US, "%-5d %-50s %8d %12d %12d %12s %14s%n",
+                    i, data[i].getClass().getName(), result[0], result[1], result[2],
+                    tripNanos == 0 ? "n/a" : String.format(Locale.US, "%.0f", 1e9 / tripNanos),
+                    result[3] == -1 ? "n/a" : Long.toString(result[3])));
+        }
+
+        File tableFile = new File(benchmarkPath, getClass().getName() + ".txt");
+        tableFile.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(tableFile);
+        try {
+            out.write(table.toString().getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        System.out.print(getClass().getName() + "\n" + table);
+    }
+
+    /**
+     * Returns the serialized size of <code>object</code>, the average
+     * nanoseconds to write and to read it, and the average bytes allocated
+     * per round trip, or -1 if the VM can't count allocations.
+     */
+    private static long[] benchmarkRoundTrip(Serializable object)
+            throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        putObjectToStream(object, bytes);
+        byte[] serialized = bytes.toByteArray();
+
+        // warm up, then measure for at least as long
+        int iterations = 0;
+        long warmUpEnd = System.nanoTime() + BENCHMARK_MILLIS * 1000000L;
+        while (System.nanoTime() < warmUpEnd) {
+            roundTrip(object, serialized);
+            iterations++;
+        }
+
+        long writeNanos = 0;
+        long readNanos = 0;
+        long allocatedBefore = ThreadStats.allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            putObjectToStream(object, new ByteArrayOutputStream(serialized.length));
+            long written = System.nanoTime();
+            getObjectFromStream(new ByteArrayInputStream(serialized));
+            long read = System.nanoTime();
+            writeNanos += written - start;
+            readNanos += read - written;
+        }
+        long allocated = ThreadStats.delta(allocatedBefore,
+                ThreadStats.allocatedBytes());
+
+        return new long[] { serialized.length, writeNanos / iterations,
+                readNanos / iterations,
+                allocated == -1 ? -1 : allocated / iterations };
+    }
+
+    private static void roundTrip(Serializable object, byte[] serialized)
+            throws Exception {
+        putObjectToStream(object, new ByteArrayOutputStream(serialized.length));
+        getObjectFromStream(new ByteArrayInputStream(serialized));
+    }
+
     /**
      * Serializes specified object to an output stream.
      */
@@ -453,7 +567,8 @@ public abstract class SerializationTest extends TestCase {
      * 
      * The method loads "<code>testName</code>.golden.ser" resource file
      * from "<module root>/src/test/resources/serialization/<code>testPackage</code>"
-     * folder, reads an object from the loaded file and compares it with
+     * folder, or from the {@link GoldenArchive} if one is configured, reads an
+     * object from the loaded file and compares it with
      * <code>object</code> using specified <code>comparator</code>.
      * 
      * @param test-
@@ -604,8 +719,11 @@ public abstract class SerializationTest extends TestCase {
         path.append(test.getClass().getName().replace('.', File.separatorChar));
         path.append(toAppend);
 
-        InputStream in = ClassLoader.getSystemClassLoader()
-                .getResourceAsStream(path.toString());
+        InputStream in = GoldenArchive.open(path.toString());
+        if (in == null) {
+            in = ClassLoader.getSystemClassLoader()
+                    .getResourceAsStream(path.toString());
+        }
 
         Assert.assertNotNull("Failed to load serialization resource file: "
                 + path, in);
@@ -28,6 +28,12 @@ import java.util.StringTokenizer;
 
 import junit.framework.TestCase;
 
+/**
+ * Runs java processes for tests. When {@code hy.test.exec.pool} is set,
+ * {@link #runJava} and {@link #execJava} run their main class on a pre-started
+ * VM from {@link Support_JvmPool} where they can; tests that need a process of
+ * their own should pass {@code freshProcess}.
+ */
 public class Support_Exec extends TestCase {
 
     /**
@@ -36,6 +42,24 @@ public class Support_Exec extends TestCase {
     public static Object[] runJava(List<String> args, String[] envp,
                                    boolean displayOutput)
             throws IOException, InterruptedException {
+        return runJava(args, envp, displayOutput, false);
+    }
+
+    /**
+     * Exec java returns the exitCode, and stdOut and stdErr as strings. If
+     * {@code freshProcess} is true, a new VM is started even when pooling is
+     * enabled.
+     */
+    public static Object[] runJava(List<String> args, String[] envp,
+                                   boolean displayOutput, boolean freshProcess)
+            throws IOException, InterruptedException {
+        if (!freshProcess) {
+            Object[] pooled = runPooled(args, envp, displayOutput);
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+
         String executable = System.getProperty("java.home");
         if (!executable.endsWith(File.separator)) {
             executable += File.separator;
@@ -93,6 +117,12 @@ public class Support_Exec extends TestCase {
     public static String execJava(String[] args, String[] classpath,
                                   boolean displayOutput)
         throws IOException, InterruptedException {
+        Object[] pooled = runPooled(javaArgs(args, classpath, true), null,
+                                    displayOutput);
+        if (pooled != null) {
+            return getPooledOutput(pooled);
+        }
+
         Object[] arr =
             execJavaCommon(args, classpath, null, displayOutput, true);
 
@@ -105,6 +135,26 @@ public class Support_Exec extends TestCase {
     public static String execJava(String[] args, String[] classpath,
                                   String[] envp, boolean displayOutput)
             throws IOException, InterruptedException {
+        return execJava(args, classpath, envp, displayOutput, false);
+    }
+
+    /**
+     * This function returns the output of the process as a string. If
+     * {@code freshProcess} is true, a new VM is started even when pooling is
+     * enabled.
+     */
+    public static String execJava(String[] args, String[] classpath,
+                                  String[] envp, boolean displayOutput,
+                                  boolean freshProcess)
+            throws IOException, InterruptedException {
+        if (!freshProcess) {
+            Object[] pooled = runPooled(javaArgs(args, classpath, false), envp,
+                                        displayOutput);
+            if (pooled != null) {
+                return getPooledOutput(pooled);
+            }
+        }
+
         Object[] arr =
             execJavaCommon(args, classpath, envp, displayOutput, false);
 
@@ -137,6 +187,63 @@ public class Support_Exec extends TestCase {
         return output.toString();
     }
 
+    private static String getPooledOutput(Object[] result) {
+        String stderr = (String) result[2];
+        if (stderr.length() > 0) {
+            fail(stderr);
+        }
+        return (String) result[1];
+    }
+
+    /**
+     * Runs java with {@code args} on a pooled VM, or returns null if pooling
+     * isn't enabled, can't honor the arguments or has no worker to spare.
+     */
+    private static Object[] runPooled(List<String> args, String[] envp,
+                                      boolean displayOutput)
+            throws IOException, InterruptedException {
+        Support_JvmPool pool = Support_JvmPool.getInstance();
+        if (pool == null) {
+            return null;
+        }
+        Support_JvmPool.Request request = Support_JvmPool.parse(args, envp);
+        if (request == null) {
+            return null;
+        }
+        if (displayOutput) {
+            System.out.println("Exec (pooled): " + args);
+            System.out.println();
+        }
+        return pool.run(request, displayOutput);
+    }
+
+    /**
+     * Returns the launcher arguments for {@code args} and {@code classpath},
+     * without the VM arguments from {@code hy.test.vmargs}.
+     */
+    private static List<String> javaArgs(String[] args, String[] classpath,
+                                         boolean appendToSystemClassPath) {
+        List<String> result = new ArrayList<String>();
+        StringBuilder classPathString = new StringBuilder();
+        if (classpath != null) {
+            for (String element : classpath) {
+                classPathString.append(File.pathSeparator);
+                classPathString.append(element);
+            }
+        }
+        if (appendToSystemClassPath) {
+            result.add("-cp");
+            result.add(System.getProperty("java.class.path") + classPathString);
+        } else if (classpath != null) {
+            result.add("-cp");
+            result.add(classPathString.toString());
+        }
+        for (String arg : args) {
+            result.add(arg);
+        }
+        return result;
+    }
+
     public static void checkStderr(Object[] execArgs) {
             StringBuilder errBuf = (StringBuilder) execArgs[1];
 
@@ -0,0 +1,460 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package tests.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringTokenizer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * A pool of pre-started {@code java} processes that run main classes on
+ * behalf of {@link Support_Exec}, so tests don't pay for VM startup on each
+ * invocation. Pooling is opt-in: set the {@code hy.test.exec.pool} system
+ * property to the number of worker VMs to keep.
+ *
+ * <p>Each worker reads requests from its standard input: a classpath, a main
+ * class, arguments and system properties. It runs the main class in a fresh
+ * class loader over that classpath, with {@code System.out} and {@code
+ * System.err} forwarded to the caller, and then reports the exit status. A
+ * worker whose target calls {@code System.exit} dies with it, and is replaced.
+ *
+ * <p>Only invocations whose VM arguments are {@code -cp}, {@code -classpath},
+ * {@code -jar} and {@code -D} options, and whose environment at most sets
+ * {@code CLASSPATH}, can be pooled; {@link #parse} returns null for anything
+ * else, and the caller should start a fresh process. Since workers are
+ * reused, static state outside of the target's class loader, other than system
+ * properties, persists from one invocation to the next. The pool runs the
+ * targets from jar files, so it is only useful on VMs that can load classes
+ * from them.
+ */
+public class Support_JvmPool {
+
+    /**
+     * Key to a system property giving the number of worker VMs to keep.
+     */
+    public static final String POOL_SIZE_KEY = "hy.test.exec.pool";
+
+    /**
+     * Key to a system property giving the seconds to wait for an idle worker
+     * before running an invocation in a fresh process instead, 30 by default.
+     */
+    public static final String TIMEOUT_KEY = "hy.test.exec.pool.timeout";
+
+    private static final byte STDOUT = 'O';
+    private static final byte STDERR = 'E';
+    private static final byte EXIT = 'X';
+
+    private static Support_JvmPool instance;
+
+    private final int size;
+    private final long timeoutSeconds = Long.getLong(TIMEOUT_KEY, 30);
+    /** the workers that failed to start since one last did */
+    private final AtomicInteger failedStarts = new AtomicInteger();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<Worker>();
+    private final List<Worker> all = new ArrayList<Worker>();
+
+    private Support_JvmPool(int size) {
+        this.size = size;
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override public void run() {
+                synchronized (all) {
+                    for (Worker worker : all) {
+                        worker.process.destroy();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the pool, starting its workers on first use, or null if pooling
+     * hasn't been enabled with {@code hy.test.exec.pool}.
+     */
+    public static synchronized Support_JvmPool getInstance() {
+        if (instance == null) {
+            int size = Integer.getInteger(POOL_SIZE_KEY, 0);
+            if (size <= 0) {
+                return null;
+            }
+            instance = new Support_JvmPool(size);
+            for (int i = 0; i < size; i++) {
+                instance.replenish();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * A main class invocation, as it would be run by the {@code java}
+     * launcher.
+     */
+    public static class Request {
+        final List<String> classpath = new ArrayList<String>();
+        final Properties properties = new Properties();
+        final List<String> args = new ArrayList<String>();
+        String mainClass;
+    }
+
+    /**
+     * Translates {@code java} launcher arguments and an environment for
+     * {@code Runtime.exec} into a request, or returns null if they can't be
+     * honored by a pooled worker.
+     */
+    public static Request parse(List<String> javaArgs, String[] envp) throws IOException {
+        String classpath = null;
+        String jar = null;
+        if (envp != null) {
+            for (String variable : envp) {
+                if (!variable.startsWith("CLASSPATH=")) {
+                    return null;
+                }
+                classpath = variable.substring("CLASSPATH=".length());
+            }
+        } else {
+            classpath = System.getenv("CLASSPATH");
+        }
+
+        Request request = new Request();
+        int i = 0;
+        for (; i < javaArgs.size() && javaArgs.get(i).startsWith("-"); i++) {
+            String arg = javaArgs.get(i);
+            if ((arg.equals("-cp") || arg.equals("-classpath")) && i + 1 < javaArgs.size()) {
+                classpath = javaArgs.get(++i);
+            } else if (arg.equals("-jar") && i + 1 < javaArgs.size()) {
+                jar = javaArgs.get(++i);
+                i++;
+                break;
+            } else if (arg.startsWith("-D")) {
+                int equals = arg.indexOf('=');
+                if (equals == -1) {
+                    request.properties.setProperty(arg.substring(2), "");
+                } else {
+                    request.properties.setProperty(arg.substring(2, equals),
+                            arg.substring(equals + 1));
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (jar != null) {
+            // like the launcher, -jar overrides any other classpath
+            JarFile jarFile = new JarFile(jar);
+            try {
+                Manifest manifest = jarFile.getManifest();
+                request.mainClass = manifest == null ? null
+                        : manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+            } finally {
+                jarFile.close();
+            }
+            request.classpath.add(jar);
+        } else {
+            if (i == javaArgs.size()) {
+                return null;
+            }
+            request.mainClass = javaArgs.get(i++);
+            StringTokenizer st = new StringTokenizer(
+                    classpath == null ? "." : classpath, File.pathSeparator);
+            while (st.hasMoreTokens()) {
+                request.classpath.add(st.nextToken());
+            }
+        }
+        if (request.mainClass == null) {
+            return null;
+        }
+
+        request.args.addAll(javaArgs.subList(i, javaArgs.size()));
+        return request;
+    }
+
+    /**
+     * Runs {@code request} on a worker and returns the exit code, and stdout
+     * and stderr as strings, like {@link Support_Exec#runJava}. Returns null
+     * if no worker becomes idle within {@code hy.test.exec.pool.timeout}
+     * seconds, or none could be started, so the caller should start a fresh
+     * process.
+     */
+    public Object[] run(Request request, boolean displayOutput)
+            throws IOException, InterruptedException {
+        Worker worker = failedStarts.get() >= size
+                ? idle.poll()
+                : idle.poll(timeoutSeconds, TimeUnit.SECONDS);
+        if (worker == null) {
+            System.err.println("No pooled VM available; starting a fresh one");
+            return null;
+        }
+        boolean reusable = false;
+        try {
+            DataOutputStream out = worker.requests;
+            out.writeInt(request.classpath.size());
+            for (String entry : request.classpath) {
+                out.writeUTF(new File(entry).getAbsolutePath());
+            }
+            out.writeUTF(request.mainClass);
+            out.writeInt(request.args.size());
+            for (String arg : request.args) {
+                out.writeUTF(arg);
+            }
+            out.writeInt(request.properties.size());
+            for (String key : request.properties.stringPropertyNames()) {
+                out.writeUTF(key);
+                out.writeUTF(request.properties.getProperty(key));
+            }
+            out.flush();
+
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            DataInputStream in = worker.responses;
+            while (true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException exited) {
+                    // the target called System.exit(), taking the worker with it
+                    return result(worker.process.waitFor(), stdout, stderr);
+                }
+                if (type == EXIT) {
+                    reusable = true;
+                    return result(in.readInt(), stdout, stderr);
+                }
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                if (type == STDOUT) {
+                    stdout.write(bytes);
+                    if (displayOutput) {
+                        System.out.write(bytes);
+                    }
+                } else {
+                    stderr.write(bytes);
+                    System.err.write(bytes);
+                }
+            }
+        } finally {
+            if (reusable) {
+                idle.add(worker);
+            } else {
+                worker.process.destroy();
+                synchronized (all) {
+                    all.remove(worker);
+                }
+                replenish();
+            }
+        }
+    }
+
+    private static Object[] result(int exitCode, ByteArrayOutputStream stdout,
+            ByteArrayOutputStream stderr) {
+        return new Object[] {
+            Integer.valueOf(exitCode),
+            stdout.toString(),
+            stderr.toString()
+        };
+    }
+
+    /**
+     * Starts a worker in the background and adds it to the idle workers once
+     * it's running. Once all {@code size} workers have failed to start in a
+     * row, {@link #run} stops waiting for them.
+     */
+    private void replenish() {
+        new Thread("Support_JvmPool starter") {
+            @Override public void run() {
+                try {
+                    Worker worker = new Worker();
+                    synchronized (all) {
+                        all.add(worker);
+                    }
+                    failedStarts.set(0);
+                    idle.add(worker);
+                } catch (IOException e) {
+                    failedStarts.incrementAndGet();
+                    System.err.println("Unable to start a pooled VM: " + e);
+                }
+            }
+        }.start();
+    }
+
+    private static class Worker {
+        final Process process;
+        final DataOutputStream requests;
+        final DataInputStream responses;
+
+        Worker() throws IOException {
+            List<String> command = new ArrayList<String>();
+            String executable = System.getProperty("java.home");
+            if (!executable.endsWith(File.separator)) {
+                executable += File.separator;
+            }
+            command.add(executable + "bin" + File.separator + "java");
+            String testVMArgs = System.getProperty("hy.test.vmargs");
+            if (testVMArgs != null) {
+                StringTokenizer st = new StringTokenizer(testVMArgs, " ");
+                while (st.hasMoreTokens()) {
+                    command.add(st.nextToken());
+                }
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Support_JvmPool.class.getName());
+
+            process = Runtime.getRuntime().exec(command.toArray(new String[command.size()]));
+            requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+
+            // anything the worker VM itself prints goes straight to our stderr
+            final InputStream err = process.getErrorStream();
+            Thread errThread = new Thread("Support_JvmPool stderr") {
+                @Override public void run() {
+                    byte[] bytes = new byte[1024];
+                    int count;
+                    try {
+                        while ((count = err.read(bytes)) != -1) {
+                            System.err.write(bytes, 0, count);
+                        }
+                    } catch (IOException ignored) {
+                    }
+                }
+            };
+            errThread.setDaemon(true);
+            errThread.start();
+        }
+    }
+
+    /**
+     * The worker VM's main loop. Serves requests from stdin until it's closed.
+     */
+    public static void main(String[] args) throws Exception {
+        final DataOutputStream responses = new DataOutputStream(
+                new FileOutputStream(FileDescriptor.out));
+        DataInputStream requests = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        System.setOut(new PrintStream(new FrameOutputStream(responses, STDOUT), true));
+        System.setErr(new PrintStream(new FrameOutputStream(responses, STDERR), true));
+
+        while (true) {
+            int classpathSize;
+            try {
+                classpathSize = requests.readInt();
+            } catch (EOFException done) {
+                return;
+            }
+            URL[] classpath = new URL[classpathSize];
+            for (int i = 0; i < classpathSize; i++) {
+                classpath[i] = new File(requests.readUTF()).toURI().toURL();
+            }
+            String mainClass = requests.readUTF();
+            String[] mainArgs = new String[requests.readInt()];
+            for (int i = 0; i < mainArgs.length; i++) {
+                mainArgs[i] = requests.readUTF();
+            }
+            Properties savedProperties = (Properties) System.getProperties().clone();
+            int propertyCount = requests.readInt();
+            for (int i = 0; i < propertyCount; i++) {
+                System.setProperty(requests.readUTF(), requests.readUTF());
+            }
+
+            int exitCode = runMain(classpath, mainClass, mainArgs);
+
+            System.out.flush();
+            System.err.flush();
+            System.setProperties(savedProperties);
+            synchronized (responses) {
+                responses.writeByte(EXIT);
+                responses.writeInt(exitCode);
+                responses.flush();
+            }
+        }
+    }
+
+    private static int runMain(URL[] classpath, String mainClass, String[] args) {
+        // the parent of the system class loader sees the core libraries but
+        // not the test classes on this worker's own classpath
+        ClassLoader loader = new URLClassLoader(classpath,
+                ClassLoader.getSystemClassLoader().getParent());
+        Thread current = Thread.currentThread();
+        ClassLoader savedContextLoader = current.getContextClassLoader();
+        current.setContextClassLoader(loader);
+        try {
+            Method main = Class.forName(mainClass, true, loader)
+                    .getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+            return 0;
+        } catch (InvocationTargetException e) {
+            System.err.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace();
+            return 1;
+        } catch (Throwable e) {
+            System.err.println("Error: could not run main class " + mainClass + ": " + e);
+            return 1;
+        } finally {
+            current.setContextClassLoader(savedContextLoader);
+        }
+    }
+
+    /**
+     * Writes each chunk of output as a typed, length-prefixed frame.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override public void write(int oneByte) throws IOException {
+            write(new byte[] { (byte) oneByte }, 0, 1);
+        }
+
+        @Override public void write(byte[] bytes, int offset, int count) throws IOException {
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(count);
+                out.write(bytes, offset, count);
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package tests.support;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A loopback HTTP/1.1 server that keeps connections open across requests and
+ * serves pipelined requests in order. Unlike {@link Support_HttpServer}, which
+ * starts a thread for each connection and closes it after one response, a
+ * single thread serves every connection through a {@link Selector}, so it is
+ * suitable for measuring connection reuse and request throughput.
+ *
+ * <p>Requests for {@code /fixed/N} are answered with an N byte body and a
+ * {@code Content-Length} header; requests for {@code /chunked/N} with an N
+ * byte body in chunked transfer encoding. Byte {@code i} of each body is
+ * {@code 'A' + i % 26}. Other paths get an empty 404. Request bodies are read
+ * and discarded. The connection is closed after a response only if the
+ * request asked for that with {@code Connection: close} or was HTTP/1.0.
+ */
+public class Support_KeepAliveHttpServer {
+
+    public static final String FIXED = "/fixed/";
+
+    public static final String CHUNKED = "/chunked/";
+
+    private static final byte[] PATTERN = new byte[26 * 1024];
+    static {
+        for (int i = 0; i < PATTERN.length; i++) {
+            PATTERN[i] = (byte) ('A' + i % 26);
+        }
+    }
+
+    private static final byte[] HEADER_END = { '\r', '\n', '\r', '\n' };
+
+    private int chunkSize = 8192;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean shuttingDown;
+
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private int requestCount;
+
+    /**
+     * Sets the size of each chunk of {@code /chunked/} responses.
+     */
+    public Support_KeepAliveHttpServer setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize <= 0: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Binds to a free loopback port and starts serving.
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    serve();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Support_KeepAliveHttpServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Closes the server and all of its connections.
+     */
+    public void shutdown() throws IOException {
+        shuttingDown = true;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        serverChannel.close();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public URL getUrl(String path) throws IOException {
+        return new URL("http", "127.0.0.1", getPort(), path);
+    }
+
+    /**
+     * Returns the number of connections accepted so far.
+     */
+    public synchronized int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of requests served so far on all connections.
+     */
+    public synchronized int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of requests served on each connection, in the order
+     * the connections were accepted.
+     */
+    public synchronized int[] getRequestsPerConnection() {
+        int[] result = new int[connections.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = connections.get(i).requests;
+        }
+        return result;
+    }
+
+    private void serve() throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+        while (!shuttingDown) {
+            selector.select();
+            for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                SelectionKey key = i.next();
+                i.remove();
+                try {
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(key, readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(key);
+                    }
+                } catch (IOException e) {
+                    // the client went away or sent garbage; drop the connection
+                    key.channel().close();
+                }
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection();
+        synchronized (this) {
+            connections.add(connection);
+        }
+        channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private void read(SelectionKey key, ByteBuffer readBuffer) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        readBuffer.clear();
+        int count = ((SocketChannel) key.channel()).read(readBuffer);
+        if (count == -1) {
+            key.channel().close();
+            return;
+        }
+        connection.append(readBuffer.array(), count);
+
+        while (connection.handleRequest()) {
+            synchronized (this) {
+                connection.requests++;
+                requestCount++;
+            }
+        }
+        if (!connection.output.isEmpty()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        while (!connection.output.isEmpty()) {
+            ByteBuffer buffer = connection.output.getFirst();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return; // the socket is full; wait until it's writable again
+            }
+            connection.output.removeFirst();
+        }
+        if (connection.closeWhenWritten) {
+            channel.close();
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private class Connection {
+        private byte[] input = new byte[8192];
+        private int inputLength;
+        private final LinkedList<ByteBuffer> output = new LinkedList<ByteBuffer>();
+        private boolean closeWhenWritten;
+        private int requests;
+
+        void append(byte[] bytes, int count) {
+            if (inputLength + count > input.length) {
+                byte[] grown = new byte[Math.max(input.length * 2, inputLength + count)];
+                System.arraycopy(input, 0, grown, 0, inputLength);
+                input = grown;
+            }
+            System.arraycopy(bytes, 0, input, inputLength, count);
+            inputLength += count;
+        }
+
+        /**
+         * Parses one complete request from the input and queues its response.
+         * Returns false if the input doesn't hold a complete request yet.
+         */
+        boolean handleRequest() throws IOException {
+            if (closeWhenWritten) {
+                return false;
+            }
+            int headerEnd = indexOf(HEADER_END);
+            if (headerEnd == -1) {
+                return false;
+            }
+
+            String[] lines = new String(input, 0, headerEnd, "ISO8859_1").split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            int contentLength = 0;
+            boolean close = requestLine.length < 3 || requestLine[2].equals("HTTP/1.0");
+            for (int i = 1; i < lines.length; i++) {
+                String line = lines[i].toLowerCase();
+                if (line.startsWith("content-length:")) {
+                    try {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad request header: " + lines[i]);
+                    }
+                } else if (line.startsWith("connection:")) {
+                    close = line.substring(11).trim().equals("close");
+                } else if (line.startsWith("transfer-encoding:")) {
+                    throw new IOException("Chunked request bodies are not supported");
+                }
+            }
+
+            int requestEnd = headerEnd + HEADER_END.length + contentLength;
+            if (requestEnd > inputLength) {
+                return false;
+            }
+            System.arraycopy(input, requestEnd, input, 0, inputLength - requestEnd);
+            inputLength -= requestEnd;
+
+            respond(requestLine.length > 1 ? requestLine[1] : "", close);
+            closeWhenWritten = close;
+            return true;
+        }
+
+        private void respond(String path, boolean close) throws IOException {
+            String connectionHeader = close ? "Connection: close\r\n" : "";
+            if (path.startsWith(FIXED) && isNumber(path.substring(FIXED.length()))) {
+                int length = Integer.parseInt(path.substring(FIXED.length()));
+                print("HTTP/1.1 200 OK\r\n" + connectionHeader
+                        + "Content-Length: " + length + "\r\n\r\n");
+                body(0, length);
+            } else if (path.startsWith(CHUNKED) && isNumber(path.substring(CHUNKED.length()))) {
+                int length = Integer.parseInt(path.substring(CHUNKED.length()));
+                print("HTTP/1.1 200 OK\r\n" + connectionHeader
+                        + "Transfer-Encoding: chunked\r\n\r\n");
+                for (int offset = 0; offset < length; offset += chunkSize) {
+                    int size = Math.min(chunkSize, length - offset);
+                    print(Integer.toHexString(size) + "\r\n");
+                    body(offset, size);
+                    print("\r\n");
+                }
+                print("0\r\n\r\n");
+            } else {
+                print("HTTP/1.1 404 Not Found\r\n" + connectionHeader
+                        + "Content-Length: 0\r\n\r\n");
+            }
+        }
+
+        private boolean isNumber(String s) {
+            if (s.length() == 0 || s.length() > 9) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                if (!Character.isDigit(s.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void print(String text) throws IOException {
+            output.add(ByteBuffer.wrap(text.getBytes("ISO8859_1")));
+        }
+
+        /**
+         * Queues bytes {@code offset} to {@code offset + length} of a body,
+         * sharing the pattern array rather than copying it.
+         */
+        private void body(int offset, int length) {
+            int end = offset + length;
+            while (offset < end) {
+                int start = offset % 26;
+                int count = Math.min(end - offset, PATTERN.length - start);
+                output.add(ByteBuffer.wrap(PATTERN, start, count));
+                offset += count;
+            }
+        }
+
+        private int indexOf(byte[] target) {
+            outer:
+            for (int i = 0; i <= inputLength - target.length; i++) {
+                for (int j = 0; j < target.length; j++) {
+                    if (input[i + j] != target[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -17,38 +17,106 @@
 
 package tests.support;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.net.DatagramSocket;
 import java.net.ServerSocket;
+import java.nio.channels.FileLock;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.TimeZone;
 
 /**
  * The port manager is supposed to help finding a free
  * network port on the machine; however, it uses strange
  * logic, so leave it to the OS.
+ *
+ * <p>Tests that can should use {@link #bindServerSocket} and {@link
+ * #bindDatagramSockets}, which hand out sockets already bound to ports the OS
+ * chose. The port numbers returned by the other methods are free when they
+ * are returned but may be taken by the time the test binds them. When several
+ * test VMs run at once, setting the {@code hy.test.ports.lockfile} system
+ * property to the same file in each of them ensures that no two VMs are handed
+ * the same port number within {@link #RESERVATION_MILLIS}.
  *  
  * @deprecated Use OS to find free ports.
  */
 public class Support_PortManager {
 
+    /**
+     * Key to a system property naming the file that records the ports handed
+     * out to all VMs sharing it.
+     */
+    public static final String LOCK_FILE_KEY = "hy.test.ports.lockfile";
+
+    /**
+     * How long a port handed out to one VM is withheld from the others.
+     */
+    public static final long RESERVATION_MILLIS = 60 * 1000;
+
+    private static final int MAX_ATTEMPTS = 100;
+
+    /** how often a failing read or write of the lock file is tried */
+    private static final int LOCK_ATTEMPTS = 5;
+
     private static int lastAssignedPort = somewhatRandomPort();
     private static boolean failedOnce = false;
 
     public static synchronized int getNextPort() {
-        if (!failedOnce) {
+        for (int attempt = 0; !failedOnce && attempt < MAX_ATTEMPTS; attempt++) {
+            int port;
             try {
                 ServerSocket ss = new ServerSocket(0);
-                int port = ss.getLocalPort();
+                port = ss.getLocalPort();
 
                 ss.close();
-                return port;
             } catch (Exception ex) {
                 failedOnce = true;
+                break;
+            }
+            if (reserve(new int[] { port })) {
+                return port;
             }
         }
         return getNextPort_unsafe();
     }
 
+    /**
+     * Returns a server socket bound to a port chosen by the OS. Unlike the
+     * port numbers returned by {@link #getNextPort}, this can't collide with
+     * another test.
+     */
+    public static ServerSocket bindServerSocket() throws IOException {
+        return new ServerSocket(0);
+    }
+
+    /**
+     * Returns the specified number of datagram sockets, each bound to a
+     * distinct port chosen by the OS.
+     */
+    public static DatagramSocket[] bindDatagramSockets(int num) throws IOException {
+        if (num <= 0) {
+            throw new IllegalArgumentException("Invalid ports number: " + num);
+        }
+        DatagramSocket[] result = new DatagramSocket[num];
+        try {
+            for (int i = 0; i < num; ++i) {
+                result[i] = new DatagramSocket(0);
+            }
+        } catch (IOException ex) {
+            for (int i = 0; i < num; ++i) {
+                if (result[i] != null) {
+                    result[i].close();
+                }
+            }
+            throw ex;
+        }
+        return result;
+    }
+
     /**
      * Returns 1 free ports to be used.
      */
@@ -63,24 +131,29 @@ public class Support_PortManager {
         if (num <= 0) {
             throw new IllegalArgumentException("Invalid ports number: " + num);
         }
-        DatagramSocket[] dss = new DatagramSocket[num];
-        int[] ports = new int[num];
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            DatagramSocket[] dss = null;
+            int[] ports = new int[num];
 
-        try {
-            for (int i = 0; i < num; ++i) {
-                dss[i] = new DatagramSocket(0);
-                ports[i] = dss[i].getLocalPort();
-            }
-        } catch (Exception ex) {
-            throw new Error("Unable to get " + num + " ports for UDP: " + ex);
-        } finally {
-            for (int i = 0; i < num; ++i) {
-                if (dss[i] != null) {
-                    dss[i].close();
+            try {
+                dss = bindDatagramSockets(num);
+                for (int i = 0; i < num; ++i) {
+                    ports[i] = dss[i].getLocalPort();
+                }
+                if (reserve(ports)) {
+                    return ports;
+                }
+            } catch (Exception ex) {
+                throw new Error("Unable to get " + num + " ports for UDP: " + ex);
+            } finally {
+                if (dss != null) {
+                    for (int i = 0; i < num; ++i) {
+                        dss[i].close();
+                    }
                 }
             }
         }
-        return ports;
+        throw new Error("Unable to get " + num + " unreserved ports for UDP");
     }
 
     public static synchronized int getNextPort_unsafe() {
@@ -90,6 +163,93 @@ public class Support_PortManager {
         return lastAssignedPort;
     }
 
+    /**
+     * Records {@code ports} in the lock file and returns true, unless another
+     * VM was handed one of them recently, in which case this returns false.
+     * Always returns true if no lock file is configured or it can't be opened.
+     * Locking, reading or writing the file is retried a few times before
+     * failing with an Error.
+     */
+    private static boolean reserve(int[] ports) {
+        String lockFile = System.getProperty(LOCK_FILE_KEY);
+        if (lockFile == null) {
+            return true;
+        }
+
+        new File(lockFile).getAbsoluteFile().getParentFile().mkdirs();
+        for (int attempt = 1; ; attempt++) {
+            RandomAccessFile file;
+            try {
+                file = new RandomAccessFile(lockFile, "rw");
+            } catch (IOException ex) {
+                System.err.println("Not reserving ports in " + lockFile + ": " + ex);
+                return true;
+            }
+            try {
+                return reserve(file, ports);
+            } catch (IOException ex) {
+                if (attempt == LOCK_ATTEMPTS) {
+                    throw new Error("Unable to reserve ports in " + lockFile + ": " + ex);
+                }
+            } finally {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                Thread.sleep(10 * attempt);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new Error("Interrupted while reserving ports in " + lockFile);
+            }
+        }
+    }
+
+    private static boolean reserve(RandomAccessFile file, int[] ports) throws IOException {
+        FileLock lock = file.getChannel().lock();
+        try {
+            long now = System.currentTimeMillis();
+            Map<Integer, Long> reserved = new HashMap<Integer, Long>();
+            String line;
+            while ((line = file.readLine()) != null) {
+                String[] fields = line.trim().split(" ");
+                try {
+                    if (fields.length == 2) {
+                        reserved.put(Integer.valueOf(fields[0]), Long.valueOf(fields[1]));
+                    }
+                } catch (NumberFormatException ignored) {
+                    // a line torn by a VM that died while writing
+                }
+            }
+            for (Iterator<Long> i = reserved.values().iterator(); i.hasNext(); ) {
+                if (i.next() < now - RESERVATION_MILLIS) {
+                    i.remove();
+                }
+            }
+
+            for (int port : ports) {
+                if (reserved.containsKey(port)) {
+                    return false;
+                }
+            }
+            for (int port : ports) {
+                reserved.put(port, now);
+            }
+
+            StringBuilder contents = new StringBuilder();
+            for (Map.Entry<Integer, Long> entry : reserved.entrySet()) {
+                contents.append(entry.getKey()).append(' ')
+                        .append(entry.getValue()).append('\n');
+            }
+            file.setLength(0);
+            file.write(contents.toString().getBytes("US-ASCII"));
+            return true;
+        } finally {
+            lock.release();
+        }
+    }
+
     /*
       * Returns a different port number every 6 seconds or so. The port number
       * should be about += 100 at each 6 second interval
@@ -28,6 +28,8 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.net.URL;
 
+import org.apache.harmony.testframework.serialization.GoldenArchive;
+
 /**
  * This class simplifies the serialization test.
  * 
@@ -143,7 +145,8 @@ public class SerializationTester {
 	}
 
 	/**
-	 * Deserialize an object from a file.
+	 * Deserialize an object from a file, which is looked up in the
+	 * GoldenArchive before the classpath.
 	 * 
 	 * @param obj
 	 *            the object to be serialized if no serialization file is found
@@ -155,17 +158,19 @@ public class SerializationTester {
 	 */
 	public static Object readObject(Object obj, String fileName)
 			throws Exception {
-		InputStream input = null;
+		InputStream input = GoldenArchive.open(fileName);
 		ObjectInputStream oinput = null;
-		URL url = SerializationTester.class.getClassLoader().getResource(
-				fileName);
-		if (null == url) {
-			// serialization file does not exist, create one in the current dir
-			writeObject(obj, new File(fileName).getName());
-			throw new Error(
-					"Serialization file does not exist, created in the current dir.");
+		if (null == input) {
+			URL url = SerializationTester.class.getClassLoader().getResource(
+					fileName);
+			if (null == url) {
+				// serialization file does not exist, create one in the current dir
+				writeObject(obj, new File(fileName).getName());
+				throw new Error(
+						"Serialization file does not exist, created in the current dir.");
+			}
+			input = url.openStream();
 		}
-		input = url.openStream();
 		try {
 			oinput = new ObjectInputStream(input);
 			Object newObj = oinput.readObject();